@@ -19,9 +19,10 @@ package io.github.clendy.leanback.utils;
 import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
-import android.util.Log;
 import android.view.View;
 
+import io.github.clendy.leanback.widget.BaseGridView;
+
 /**
  * @author Clendy
  */
@@ -33,6 +34,16 @@ public final class LayoutManagerHelper {
 
     private RecyclerView.LayoutManager mLayoutManager;
 
+    /**
+     * Edges of the focused child and what they were computed for.
+     */
+    private int mEdges;
+    private View mEdgesChild;
+    private int mEdgesPosition = RecyclerView.NO_POSITION;
+    private int mEdgesItemCount = -1;
+    private RecyclerView.LayoutManager mEdgesLayoutManager;
+    private int mEdgesLayoutGeneration;
+
     private LayoutManagerHelper(RecyclerView recyclerView) {
         this.mRecyclerView = recyclerView;
     }
@@ -52,157 +63,97 @@ public final class LayoutManagerHelper {
     }
 
     public boolean isFocusOnLeftmostColumn() {
-        if (!ensureLayoutManager()) {
-            return false;
-        }
-        View child = mRecyclerView.getFocusedChild();
-        int position = mRecyclerView.getChildLayoutPosition(child);
-        if (mLayoutManager instanceof GridLayoutManager) {
-            GridLayoutManager layoutManager = (GridLayoutManager) mLayoutManager;
-            int orientation = layoutManager.getOrientation();
-            if (orientation == GridLayoutManager.HORIZONTAL) {
-                return position < layoutManager.getSpanCount();
-            } else if (orientation == GridLayoutManager.VERTICAL) {
-                return position % layoutManager.getSpanCount() == 0;
-            }
-        } else if (mLayoutManager instanceof LinearLayoutManager) {
-            LinearLayoutManager layoutManager = (LinearLayoutManager) mLayoutManager;
-            int orientation = layoutManager.getOrientation();
-            if (orientation == LinearLayoutManager.HORIZONTAL) {
-                if (position == 0) {
-                    return true;
-                }
-            } else if (orientation == LinearLayoutManager.VERTICAL) {
-                return true;
-            }
-        }
-        return false;
+        return (getFocusEdges() & BaseGridView.EDGE_LEFT) != 0;
     }
 
     public boolean isFocusOnRightmostColumn() {
-        if (!ensureLayoutManager()) {
-            return false;
-        }
-        View child = mRecyclerView.getFocusedChild();
-        int position = mRecyclerView.getChildLayoutPosition(child);
-        if (mLayoutManager instanceof GridLayoutManager) {
-            GridLayoutManager layoutManager = (GridLayoutManager) mLayoutManager;
-            int orientation = layoutManager.getOrientation();
-            if (orientation == GridLayoutManager.HORIZONTAL) {
-                int rowCount = layoutManager.getItemCount() / layoutManager.getSpanCount();
-                int rowNum = position / layoutManager.getSpanCount();
-                return rowNum == rowCount - 1;
-            } else if (orientation == GridLayoutManager.VERTICAL) {
-                if (position % layoutManager.getSpanCount() == layoutManager.getSpanCount() - 1) {
-                    return true;
-                } else if (position == layoutManager.getItemCount() - 1) {
-                    return true;
-                } else {
-                    return false;
-                }
-            }
-        } else if (mLayoutManager instanceof LinearLayoutManager) {
-            LinearLayoutManager layoutManager = (LinearLayoutManager) mLayoutManager;
-            int orientation = layoutManager.getOrientation();
-            if (orientation == LinearLayoutManager.HORIZONTAL) {
-                if (position == layoutManager.getItemCount() - 1) {
-                    return true;
-                } else {
-                    return false;
-                }
-            } else if (orientation == LinearLayoutManager.VERTICAL) {
-                return true;
-            }
-        }
-        return false;
+        return (getFocusEdges() & BaseGridView.EDGE_RIGHT) != 0;
     }
 
     public boolean isFocusOnTopmostRow() {
+        return (getFocusEdges() & BaseGridView.EDGE_TOP) != 0;
+    }
+
+    public boolean isFocusOnBottommostRow() {
+        return (getFocusEdges() & BaseGridView.EDGE_BOTTOM) != 0;
+    }
+
+    /**
+     * Returns edges of the focused child, computed again only when the focused child, its
+     * position, the item count, the layout manager or the layout of a BaseGridView changed.
+     */
+    private int getFocusEdges() {
         if (!ensureLayoutManager()) {
-            return false;
+            return 0;
         }
         View child = mRecyclerView.getFocusedChild();
+        if (child == null) {
+            return 0;
+        }
         int position = mRecyclerView.getChildLayoutPosition(child);
-        if (mLayoutManager instanceof GridLayoutManager) {
-            GridLayoutManager layoutManager = (GridLayoutManager) mLayoutManager;
-            int orientation = layoutManager.getOrientation();
-
-            if (orientation == GridLayoutManager.HORIZONTAL) {
-                if (position % layoutManager.getItemCount() == 0) {
-                    return true;
-                } else {
-                    return false;
-                }
-
-            } else if (orientation == GridLayoutManager.VERTICAL) {
-                if (position < layoutManager.getSpanCount()) {
-                    return true;
-                } else {
-                    return false;
-                }
-            }
-
-        } else if (mLayoutManager instanceof LinearLayoutManager) {
-            LinearLayoutManager layoutManager = (LinearLayoutManager) mLayoutManager;
-            int orientation = layoutManager.getOrientation();
-
-            if (orientation == LinearLayoutManager.HORIZONTAL) {
-                return true;
-
-            } else if (orientation == LinearLayoutManager.VERTICAL) {
-                if (position == 0) {
-                    return true;
-                }
-            }
-
+        int itemCount = mLayoutManager.getItemCount();
+        // edges of a BaseGridView depend on the laid out items, not only on the position
+        int layoutGeneration = mRecyclerView instanceof BaseGridView
+                ? ((BaseGridView) mRecyclerView).getLayoutGeneration() : 0;
+        if (child != mEdgesChild || position != mEdgesPosition || itemCount != mEdgesItemCount
+                || mLayoutManager != mEdgesLayoutManager
+                || layoutGeneration != mEdgesLayoutGeneration) {
+            mEdgesChild = child;
+            mEdgesPosition = position;
+            mEdgesItemCount = itemCount;
+            mEdgesLayoutManager = mLayoutManager;
+            mEdgesLayoutGeneration = layoutGeneration;
+            mEdges = computeEdges(position, itemCount);
         }
-        return false;
+        return mEdges;
     }
 
-    public boolean isFocusOnBottommostRow() {
-        if (!ensureLayoutManager()) {
-            return false;
+    private int computeEdges(int position, int itemCount) {
+        if (position == RecyclerView.NO_POSITION) {
+            return 0;
         }
-        View child = mRecyclerView.getFocusedChild();
-        int position = mRecyclerView.getChildLayoutPosition(child);
+        if (mRecyclerView instanceof BaseGridView) {
+            return ((BaseGridView) mRecyclerView).getItemEdges(position);
+        }
+        boolean left = false;
+        boolean top = false;
+        boolean right = false;
+        boolean bottom = false;
         if (mLayoutManager instanceof GridLayoutManager) {
             GridLayoutManager layoutManager = (GridLayoutManager) mLayoutManager;
-            int orientation = layoutManager.getOrientation();
-
-            if (orientation == GridLayoutManager.HORIZONTAL) {
-                if (position % layoutManager.getSpanCount() == layoutManager.getSpanCount() - 1) {
-                    return true;
-                } else if (position == layoutManager.getItemCount() - 1) {
-                    return true;
-                } else {
-                    return false;
-                }
-
-            } else if (orientation == GridLayoutManager.VERTICAL) {
-                int rowCount = layoutManager.getItemCount() / layoutManager.getSpanCount();
-                int rowNum = position / layoutManager.getSpanCount();
-                if (rowNum == rowCount - 1) {
-                    return true;
-                } else {
-                    return false;
-                }
+            int spanCount = layoutManager.getSpanCount();
+            boolean firstLine = position < spanCount;
+            boolean lastLine = position / spanCount == (itemCount - 1) / spanCount;
+            boolean firstSpan = position % spanCount == 0;
+            boolean lastSpan = position % spanCount == spanCount - 1
+                    || position == itemCount - 1;
+            if (layoutManager.getOrientation() == GridLayoutManager.HORIZONTAL) {
+                left = firstLine;
+                right = lastLine;
+                top = firstSpan;
+                bottom = lastSpan;
+            } else {
+                left = firstSpan;
+                right = lastSpan;
+                top = firstLine;
+                bottom = lastLine;
             }
-
         } else if (mLayoutManager instanceof LinearLayoutManager) {
             LinearLayoutManager layoutManager = (LinearLayoutManager) mLayoutManager;
-            int orientation = layoutManager.getOrientation();
-
-            if (orientation == LinearLayoutManager.HORIZONTAL) {
-                return true;
-
-            } else if (orientation == LinearLayoutManager.VERTICAL) {
-                if (position == layoutManager.getItemCount() - 1) {
-                    return true;
-                }
+            if (layoutManager.getOrientation() == LinearLayoutManager.HORIZONTAL) {
+                left = position == 0;
+                right = position == itemCount - 1;
+                top = true;
+                bottom = true;
+            } else {
+                left = true;
+                right = true;
+                top = position == 0;
+                bottom = position == itemCount - 1;
             }
-
         }
-        return false;
+        return (left ? BaseGridView.EDGE_LEFT : 0) | (top ? BaseGridView.EDGE_TOP : 0)
+                | (right ? BaseGridView.EDGE_RIGHT : 0) | (bottom ? BaseGridView.EDGE_BOTTOM : 0);
     }
 
 }
@@ -16,13 +16,18 @@ package io.github.clendy.leanback.widget;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Rect;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
+import android.util.SparseIntArray;
 import android.view.Gravity;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.View;
 
+import java.util.ArrayList;
+
 import io.github.clendy.leanback.R;
 
 /**
@@ -135,6 +140,15 @@ public abstract class BaseGridView extends RecyclerView {
      */
     public static final int SAVE_ALL_CHILD = 3;
 
+    /**
+     * Flags of {@link #getItemEdges(int)}: the item is on the leftmost column, topmost row,
+     * rightmost column or bottommost row of the grid.
+     */
+    public static final int EDGE_LEFT = 1;
+    public static final int EDGE_TOP = 1 << 1;
+    public static final int EDGE_RIGHT = 1 << 2;
+    public static final int EDGE_BOTTOM = 1 << 3;
+
     /**
      * Listener for intercepting touch dispatch events.
      */
@@ -172,6 +186,18 @@ public abstract class BaseGridView extends RecyclerView {
         public boolean onUnhandledKey(KeyEvent event);
     }
 
+    /**
+     * A D-pad key held for this long with at least this many repeats jumps pages when
+     * page jump is enabled, i.e. the key repeats at 10 per second or faster.
+     */
+    private static final int PAGE_JUMP_HOLD_MS = 1000;
+    private static final int PAGE_JUMP_MIN_REPEATS = 10;
+
+    /**
+     * Default size of RecyclerView's item view cache.
+     */
+    private static final int DEFAULT_ITEM_VIEW_CACHE_SIZE = 2;
+
     final GridLayoutManager mLayoutManager;
 
     /**
@@ -188,6 +214,32 @@ public abstract class BaseGridView extends RecyclerView {
     private OnKeyInterceptListener mOnKeyInterceptListener;
     private RecyclerView.RecyclerListener mChainedRecyclerListener;
     private OnUnhandledKeyListener mOnUnhandledKeyListener;
+    private ViewHolderTask mViewHolderUpgradeTask;
+
+    /**
+     * Item view cache size set by {@link #setItemViewCacheSize(int)}, and the slots reserved
+     * on top of it for views prefetched by the layout manager.
+     */
+    private int mItemViewCacheSize = DEFAULT_ITEM_VIEW_CACHE_SIZE;
+    private int mPrefetchViewCacheSize;
+
+    /**
+     * Number of ViewHolders {@link #warmUpViewHolders(int, int)} fills the pool up to for each
+     * view type, and the adapter they are created from.
+     */
+    private final SparseIntArray mWarmUpCounts = new SparseIntArray();
+    private RecyclerView.Adapter mWarmUpAdapter;
+    private boolean mWarmUpScheduled;
+    private final ArrayList<RecyclerView.ViewHolder> mTmpPooledViewHolders = new ArrayList<>();
+
+    private final MessageQueue.IdleHandler mWarmUpIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            // one ViewHolder each time main thread becomes idle
+            mWarmUpScheduled = warmUpNextViewHolder();
+            return mWarmUpScheduled;
+        }
+    };
 
     public BaseGridView(Context context, AttributeSet attrs, int defStyle) {
         super(context, attrs, defStyle);
@@ -743,12 +795,39 @@ public abstract class BaseGridView extends RecyclerView {
         if (super.dispatchKeyEvent(event)) {
             return true;
         }
+        if (isPageJumpKeyRepeat(event) && mLayoutManager.pageJump(getFocusDirection(event))) {
+            return true;
+        }
         if (mOnUnhandledKeyListener != null && mOnUnhandledKeyListener.onUnhandledKey(event)) {
             return true;
         }
         return false;
     }
 
+    private boolean isPageJumpKeyRepeat(KeyEvent event) {
+        return mLayoutManager.isPageJumpEnabled() && event.getAction() == KeyEvent.ACTION_DOWN
+                && event.getRepeatCount() >= PAGE_JUMP_MIN_REPEATS
+                && event.getEventTime() - event.getDownTime() >= PAGE_JUMP_HOLD_MS
+                && event.getRepeatCount() * 1000L
+                >= (event.getEventTime() - event.getDownTime()) * PAGE_JUMP_MIN_REPEATS
+                && getFocusDirection(event) != 0;
+    }
+
+    private static int getFocusDirection(KeyEvent event) {
+        switch (event.getKeyCode()) {
+            case KeyEvent.KEYCODE_DPAD_LEFT:
+                return View.FOCUS_LEFT;
+            case KeyEvent.KEYCODE_DPAD_RIGHT:
+                return View.FOCUS_RIGHT;
+            case KeyEvent.KEYCODE_DPAD_UP:
+                return View.FOCUS_UP;
+            case KeyEvent.KEYCODE_DPAD_DOWN:
+                return View.FOCUS_DOWN;
+            default:
+                return 0;
+        }
+    }
+
     @Override
     public boolean dispatchTouchEvent(MotionEvent event) {
         if (mOnTouchInterceptListener != null) {
@@ -842,4 +921,348 @@ public abstract class BaseGridView extends RecyclerView {
     public int getExtraLayoutSpace() {
         return mLayoutManager.getExtraLayoutSpace();
     }
+
+    /**
+     * Sets maximum pixels of extra space added to {@link #setExtraLayoutSpace(int)} on the
+     * edge scrolled toward.  The added space grows with scroll speed, e.g. when a D-pad key is
+     * held down, so children are laid out ahead of a fast scroll; it is dropped together with
+     * the children laid out in it when scrolling stops.
+     *
+     * @param maxExtraLayoutSpace Maximum pixels of adaptive extra space, 0 (default) to disable.
+     */
+    public void setMaxAdaptiveExtraLayoutSpace(int maxExtraLayoutSpace) {
+        mLayoutManager.setMaxAdaptiveExtraLayoutSpace(maxExtraLayoutSpace);
+    }
+
+    /**
+     * Returns maximum pixels of extra space added on the edge scrolled toward, 0 if disabled.
+     */
+    public int getMaxAdaptiveExtraLayoutSpace() {
+        return mLayoutManager.getMaxAdaptiveExtraLayoutSpace();
+    }
+
+    /**
+     * Enables or disables page jump.  When enabled and a D-pad key in scrolling direction is
+     * held down with fast key repeat, each repeat moves selection by a page of items without
+     * creating and binding the items in between, and the last columns of each jump are
+     * smoothly scrolled.  Default is false.
+     *
+     * @param enabled True to jump pages on fast key repeat.
+     */
+    public void setPageJumpEnabled(boolean enabled) {
+        mLayoutManager.setPageJumpEnabled(enabled);
+    }
+
+    /**
+     * Returns true if a held D-pad key jumps pages.
+     */
+    public boolean isPageJumpEnabled() {
+        return mLayoutManager.isPageJumpEnabled();
+    }
+
+    /**
+     * Returns edges of the grid that the item at position is laid out against, a combination
+     * of {@link #EDGE_LEFT}, {@link #EDGE_TOP}, {@link #EDGE_RIGHT} and {@link #EDGE_BOTTOM},
+     * taking rows of staggered grids, reversed flow and RTL into account.  Returns 0 if the
+     * item is not laid out.
+     *
+     * @param position Adapter position of a laid out item.
+     */
+    public int getItemEdges(int position) {
+        return mLayoutManager.getItemEdges(position);
+    }
+
+    /**
+     * Returns a number that changes whenever the grid lays out, adds or removes items, so
+     * results of {@link #getItemEdges(int)} can be cached until it changes.
+     */
+    public int getLayoutGeneration() {
+        return mLayoutManager.getLayoutGeneration();
+    }
+
+    /**
+     * Sets number of items beyond the laid out items from which
+     * {@link #setSelectedPositionSmooth(int)} first jumps to a few columns before the target
+     * and smoothly scrolls only the rest, instead of laying out every item in between.
+     *
+     * @param itemCount Number of items, 0 (default) to always scroll through all items.
+     */
+    public void setSmoothScrollJumpThreshold(int itemCount) {
+        mLayoutManager.setSmoothScrollJumpThreshold(itemCount);
+    }
+
+    /**
+     * Returns number of items beyond the laid out items from which a smooth selection jumps
+     * near the target first, 0 if disabled.
+     */
+    public int getSmoothScrollJumpThreshold() {
+        return mLayoutManager.getSmoothScrollJumpThreshold();
+    }
+
+    /**
+     * Sets scroll speed from which the grid is scrolling fast.  While {@link #isScrollingFast()}
+     * returns true, an adapter may bind items with
+     * {@link Presenter#onBindViewHolderSkeleton(Presenter.ViewHolder, Object)}; they are
+     * upgraded by {@link #setViewHolderUpgradeTask(ViewHolderTask)} when scrolling slows down
+     * or stops.
+     *
+     * @param pixelsPerSecond Speed in pixels per second, 0 (default) never scrolls fast.
+     */
+    public void setFastScrollSpeed(int pixelsPerSecond) {
+        mLayoutManager.setFastScrollSpeed(pixelsPerSecond);
+    }
+
+    /**
+     * Returns scroll speed in pixels per second from which the grid is scrolling fast, 0 if
+     * never.
+     */
+    public int getFastScrollSpeed() {
+        return mLayoutManager.getFastScrollSpeed();
+    }
+
+    /**
+     * Returns true if the grid is scrolling faster than {@link #getFastScrollSpeed()}.  An
+     * adapter checks it in onBindViewHolder to choose a skeleton bind.
+     */
+    public boolean isScrollingFast() {
+        return mLayoutManager.isScrollingFast();
+    }
+
+    /**
+     * Sets task run on the ViewHolders bound while scrolling fast, once the grid slows down or
+     * stops and they are shown.  The task upgrades the skeleton bind, typically by calling
+     * {@link Presenter#onUpgradeViewHolder(Presenter.ViewHolder, Object)}.
+     */
+    public void setViewHolderUpgradeTask(ViewHolderTask task) {
+        mViewHolderUpgradeTask = task;
+    }
+
+    /**
+     * Returns task run on ViewHolders bound while scrolling fast when the grid slows down.
+     */
+    public ViewHolderTask getViewHolderUpgradeTask() {
+        return mViewHolderUpgradeTask;
+    }
+
+    /**
+     * Runs {@link #getViewHolderUpgradeTask()} on attached ViewHolders that were bound while
+     * {@link #isScrollingFast()} and are not upgraded yet.  Called automatically when the grid
+     * stops scrolling fast.
+     */
+    public void upgradeViewHolders() {
+        if (mViewHolderUpgradeTask == null) {
+            return;
+        }
+        mLayoutManager.upgradeSkeletonViewHolders(mViewHolderUpgradeTask);
+    }
+
+    /**
+     * Sets whether all items have the same size in the scrolling direction.  When true, item
+     * positions are computed from item index instead of remembered for every laid out item,
+     * so jumping to a far position does not create the items before it.  Default is false.
+     *
+     * @param uniformItemSize True if all items have the same size in the scrolling direction.
+     */
+    public void setUniformItemSize(boolean uniformItemSize) {
+        mLayoutManager.setUniformItemSize(uniformItemSize);
+    }
+
+    /**
+     * Returns true if all items are declared to have the same size in the scrolling direction.
+     */
+    public boolean hasUniformItemSize() {
+        return mLayoutManager.hasUniformItemSize();
+    }
+
+    /**
+     * Sets maximum number of items whose layout positions are remembered.  Positions of items
+     * scrolled far away are remembered so that scrolling back restores the same layout, a
+     * limit keeps the memory bounded when scrolling through a huge number of items.  When over
+     * the limit, positions farthest from the visible items are dropped.
+     *
+     * @param limit Maximum number of items to remember, 0 (default) for no limit.
+     */
+    public void setLocationCacheLimit(int limit) {
+        mLayoutManager.setLocationCacheLimit(limit);
+    }
+
+    /**
+     * Returns maximum number of items whose layout positions are remembered, 0 for no limit.
+     */
+    public int getLocationCacheLimit() {
+        return mLayoutManager.getLocationCacheLimit();
+    }
+
+    /**
+     * Enables or disables prefetch.  When enabled, views of the next column in scroll
+     * direction are created and bound while main thread is idle after a scroll step, so that
+     * key repeat scrolling does not create them in the frame that draws them.  While enabled
+     * the item view cache holds one more view per row on top of the size set by
+     * {@link #setItemViewCacheSize(int)}, so prefetched views do not evict each other or the
+     * views that just scrolled out.  Default is false.
+     *
+     * @param enabled True to prefetch views of the next column.
+     */
+    public void setPrefetchEnabled(boolean enabled) {
+        mLayoutManager.setPrefetchEnabled(enabled);
+    }
+
+    @Override
+    public void setItemViewCacheSize(int size) {
+        mItemViewCacheSize = size;
+        super.setItemViewCacheSize(size + mPrefetchViewCacheSize);
+    }
+
+    /**
+     * Reserves view cache slots for prefetched views on top of the item view cache size.
+     */
+    void setPrefetchViewCacheSize(int size) {
+        if (mPrefetchViewCacheSize != size) {
+            mPrefetchViewCacheSize = size;
+            super.setItemViewCacheSize(mItemViewCacheSize + size);
+        }
+    }
+
+    /**
+     * Returns true if views of the next column are prefetched when scrolling.
+     */
+    public boolean isPrefetchEnabled() {
+        return mLayoutManager.isPrefetchEnabled();
+    }
+
+    /**
+     * Enables or disables initial prefetch, for a grid view used as a row of an outer grid
+     * view.  When enabled and the outer grid view prefetches the row, this grid view is laid
+     * out while main thread is idle: children from the selected position that fit in its size
+     * are created and bound before the row scrolls in.  Default is false.
+     *
+     * @param enabled True to populate this grid view when its row is prefetched.
+     */
+    public void setInitialPrefetchEnabled(boolean enabled) {
+        mLayoutManager.setInitialPrefetchEnabled(enabled);
+    }
+
+    /**
+     * Returns true if this grid view is populated when its row is prefetched by an outer
+     * grid view.
+     */
+    public boolean isInitialPrefetchEnabled() {
+        return mLayoutManager.isInitialPrefetchEnabled();
+    }
+
+    /**
+     * Creates ViewHolders of a view type ahead of time and puts them in the
+     * {@link RecycledViewPool}, so the first scroll showing that type does not inflate views.
+     * One ViewHolder is created through the adapter each time main thread is idle while this
+     * grid view is attached to window, until the pool holds count ViewHolders of the view type;
+     * ViewHolders already in the pool are counted.  Pending creation pauses while this grid
+     * view is detached and resumes when it is attached again, and is cancelled when the
+     * adapter changes.  The maximum number of recycled ViewHolders of the view type kept in
+     * the pool is raised to count when it is smaller, it is never lowered.
+     *
+     * @param viewType View type of the ViewHolders to create.
+     * @param count    Number of ViewHolders the pool should hold, 0 to cancel pending creation.
+     */
+    public void warmUpViewHolders(int viewType, int count) {
+        if (count <= 0) {
+            mWarmUpCounts.delete(viewType);
+            if (mWarmUpCounts.size() == 0) {
+                cancelWarmUp();
+            }
+            return;
+        }
+        if (getAdapter() == null) {
+            throw new IllegalStateException("Adapter must be set before warming up ViewHolders");
+        }
+        if (mWarmUpAdapter != getAdapter()) {
+            mWarmUpCounts.clear();
+            mWarmUpAdapter = getAdapter();
+        }
+        mWarmUpCounts.put(viewType, count);
+        scheduleWarmUp();
+    }
+
+    private void scheduleWarmUp() {
+        if (!mWarmUpScheduled && mWarmUpCounts.size() > 0 && getWindowToken() != null) {
+            mWarmUpScheduled = true;
+            Looper.myQueue().addIdleHandler(mWarmUpIdleHandler);
+        }
+    }
+
+    private void unscheduleWarmUp() {
+        if (mWarmUpScheduled) {
+            mWarmUpScheduled = false;
+            Looper.myQueue().removeIdleHandler(mWarmUpIdleHandler);
+        }
+    }
+
+    private void cancelWarmUp() {
+        unscheduleWarmUp();
+        mWarmUpCounts.clear();
+        mWarmUpAdapter = null;
+    }
+
+    /**
+     * Creates one pending ViewHolder, returns true if more are pending.
+     */
+    private boolean warmUpNextViewHolder() {
+        if (getAdapter() != mWarmUpAdapter) {
+            mWarmUpCounts.clear();
+            mWarmUpAdapter = null;
+            return false;
+        }
+        final RecycledViewPool pool = getRecycledViewPool();
+        while (mWarmUpCounts.size() > 0) {
+            final int viewType = mWarmUpCounts.keyAt(0);
+            final int count = mWarmUpCounts.valueAt(0);
+            final int pooled = getRecycledViewCount(pool, viewType);
+            if (pooled + 1 >= count) {
+                mWarmUpCounts.removeAt(0);
+                if (pooled >= count) {
+                    // filled by recycled views meanwhile
+                    continue;
+                }
+            }
+            final RecyclerView.ViewHolder holder = mWarmUpAdapter.createViewHolder(this, viewType);
+            pool.putRecycledView(holder);
+            if (getRecycledViewCount(pool, viewType) == pooled) {
+                // pool discarded the holder, its maximum for the view type is pooled
+                pool.setMaxRecycledViews(viewType, count);
+                pool.putRecycledView(holder);
+            }
+            return mWarmUpCounts.size() > 0;
+        }
+        mWarmUpAdapter = null;
+        return false;
+    }
+
+    /**
+     * Returns the number of ViewHolders of a view type in pool.  RecycledViewPool of support
+     * library 24.2.1 has no query for it nor for its maximum, so the ViewHolders are taken out
+     * and put back in the same order.
+     */
+    private int getRecycledViewCount(RecycledViewPool pool, int viewType) {
+        RecyclerView.ViewHolder holder;
+        while ((holder = pool.getRecycledView(viewType)) != null) {
+            mTmpPooledViewHolders.add(holder);
+        }
+        final int count = mTmpPooledViewHolders.size();
+        for (int i = count - 1; i >= 0; i--) {
+            pool.putRecycledView(mTmpPooledViewHolders.get(i));
+        }
+        mTmpPooledViewHolders.clear();
+        return count;
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        scheduleWarmUp();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        unscheduleWarmUp();
+        super.onDetachedFromWindow();
+    }
 }
@@ -16,9 +16,14 @@ package io.github.clendy.leanback.widget;
 import android.content.Context;
 import android.graphics.Rect;
 import android.util.AttributeSet;
+import android.util.SparseArray;
 import android.view.View;
+import android.view.ViewParent;
 import android.widget.FrameLayout;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * A ViewGroup for managing focus behavior between overlapping views.
  */
@@ -68,11 +73,29 @@ public class BrowseFrameLayout extends FrameLayout {
     private OnFocusSearchListener mListener;
     private OnChildFocusListener mOnChildFocusListener;
 
+    private boolean mFocusRoutingCacheEnabled;
+
+    /**
+     * Focus search results from a focused view, valid while the focused view stays at the
+     * same bounds in this layout, e.g. it is not scrolled or rebound to another item.
+     */
+    private static final class FocusRoutes {
+        final Rect mBounds = new Rect();
+        final SparseArray<View> mTargets = new SparseArray<View>();
+    }
+
+    /**
+     * Focus search results keyed by the focused view, then by direction.
+     */
+    private final Map<View, FocusRoutes> mFocusRoutes = new HashMap<View, FocusRoutes>();
+    private final Rect mTmpRect = new Rect();
+
     /**
      * Sets a {@link OnFocusSearchListener}.
      */
     public void setOnFocusSearchListener(OnFocusSearchListener listener) {
         mListener = listener;
+        invalidateFocusRoutes();
     }
 
     /**
@@ -96,6 +119,92 @@ public class BrowseFrameLayout extends FrameLayout {
         return mOnChildFocusListener;
     }
 
+    /**
+     * Enables or disables caching of focus search results.  When enabled, the view found when
+     * focus leaves a child of this layout in a direction is remembered for the focused view and
+     * direction, and later searches from the same focused view skip the
+     * {@link OnFocusSearchListener} and the search through the whole view tree.  A result
+     * found by the system focus finder in another child is remembered as that child, which
+     * then places focus in itself.  Remembered results of a focused view are dropped when it
+     * moves, and all of them on every layout of this view; call
+     * {@link #invalidateFocusRoutes()} when the {@link OnFocusSearchListener} would return a
+     * different view for the same focused view.  Default is false.
+     */
+    public void setFocusRoutingCacheEnabled(boolean enabled) {
+        mFocusRoutingCacheEnabled = enabled;
+        invalidateFocusRoutes();
+    }
+
+    /**
+     * Returns true if focus search results are cached.
+     */
+    public boolean isFocusRoutingCacheEnabled() {
+        return mFocusRoutingCacheEnabled;
+    }
+
+    /**
+     * Drops all cached focus search results.
+     */
+    public void invalidateFocusRoutes() {
+        mFocusRoutes.clear();
+    }
+
+    /**
+     * Returns the child of this layout that contains view, or null if view is not a
+     * descendant.
+     */
+    private View findChildContaining(View view) {
+        ViewParent parent = view.getParent();
+        while (parent != this) {
+            if (!(parent instanceof View)) {
+                return null;
+            }
+            view = (View) parent;
+            parent = view.getParent();
+        }
+        return view;
+    }
+
+    /**
+     * Sets mTmpRect to the bounds of a descendant view in this layout's coordinates.
+     */
+    private Rect getBoundsInLayout(View view) {
+        view.getDrawingRect(mTmpRect);
+        offsetDescendantRectToMyCoords(view, mTmpRect);
+        return mTmpRect;
+    }
+
+    private View getFocusRoute(View focused, int direction) {
+        final FocusRoutes routes = mFocusRoutes.get(focused);
+        if (routes == null) {
+            return null;
+        }
+        if (!routes.mBounds.equals(getBoundsInLayout(focused))) {
+            // focused view moved or was rebound, results from its old place no longer apply
+            mFocusRoutes.remove(focused);
+            return null;
+        }
+        final View route = routes.mTargets.get(direction);
+        if (route != null && !(route.isShown() && route.hasFocusable())) {
+            routes.mTargets.remove(direction);
+            return null;
+        }
+        return route;
+    }
+
+    private void putFocusRoute(View focused, int direction, View route) {
+        final Rect bounds = getBoundsInLayout(focused);
+        FocusRoutes routes = mFocusRoutes.get(focused);
+        if (routes == null) {
+            routes = new FocusRoutes();
+            mFocusRoutes.put(focused, routes);
+        } else if (!routes.mBounds.equals(bounds)) {
+            routes.mTargets.clear();
+        }
+        routes.mBounds.set(bounds);
+        routes.mTargets.put(direction, route);
+    }
+
     @Override
     protected boolean onRequestFocusInDescendants(int direction,
                                                   Rect previouslyFocusedRect) {
@@ -108,13 +217,44 @@ public class BrowseFrameLayout extends FrameLayout {
 
     @Override
     public View focusSearch(View focused, int direction) {
+        final View child = mFocusRoutingCacheEnabled && focused != null
+                ? findChildContaining(focused) : null;
+        if (child != null) {
+            View route = getFocusRoute(focused, direction);
+            if (route != null) {
+                return route;
+            }
+        }
         if (mListener != null) {
             View view = mListener.onFocusSearch(focused, direction);
             if (view != null) {
+                if (child != null) {
+                    putFocusRoute(focused, direction, view);
+                }
                 return view;
             }
         }
-        return super.focusSearch(focused, direction);
+        View view = super.focusSearch(focused, direction);
+        if (child != null && view != null) {
+            // only remember focus leaving the child, moves inside it are left to the child
+            final View target = findChildContaining(view);
+            if (target != null && target != child) {
+                putFocusRoute(focused, direction, target);
+            }
+        }
+        return view;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        invalidateFocusRoutes();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        invalidateFocusRoutes();
     }
 
     @Override
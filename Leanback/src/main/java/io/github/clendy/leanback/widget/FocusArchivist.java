@@ -5,19 +5,72 @@ import android.support.annotation.Nullable;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
 
+import java.util.Arrays;
+
 import static android.support.v7.widget.RecyclerView.NO_ID;
 import static android.support.v7.widget.RecyclerView.NO_POSITION;
 
 /**
  * Helper class that manages focus archiving for some RecyclerView.
+ * <p>
+ * With an adapter that has stable ids, the ids of the last few focused items are remembered,
+ * so focus can be restored on the same item after its position changed by a data refresh or
+ * an adapter swap, or on an earlier focused item when the last one was removed.
  *
  * @author Clendy
  */
 public class FocusArchivist {
 
+    private static final int DEFAULT_MAX_REMEMBERED_IDS = 8;
+
+    /**
+     * Resolved position of a remembered id that must be looked up in the adapter again.
+     */
+    private static final int UNRESOLVED = -2;
+
+    /**
+     * Adapter that finds the position of an item id faster than asking ids of all items.
+     */
+    public interface ItemIdResolver {
+        /**
+         * Returns the adapter position of the item with the stable id, or
+         * {@link RecyclerView#NO_POSITION} if there is no such item.
+         */
+        int getPositionForItemId(long id);
+    }
+
     private int mLastSelectedPos = NO_POSITION;
     private long mLastSelectedId = NO_ID;
 
+    /**
+     * Stable ids of focused items and their last known positions, most recent first.
+     */
+    private final long[] mRememberedIds;
+    private final int[] mRememberedPositions;
+    private int mRememberedCount;
+
+    /**
+     * Adapter positions of remembered ids found since the last {@link #invalidatePositions()},
+     * NO_POSITION if the id is not in the adapter, UNRESOLVED if not looked up yet.
+     */
+    private final int[] mResolvedPositions;
+
+    public FocusArchivist() {
+        this(DEFAULT_MAX_REMEMBERED_IDS);
+    }
+
+    /**
+     * @param maxRememberedIds Number of stable ids of focused items to remember.
+     */
+    public FocusArchivist(int maxRememberedIds) {
+        if (maxRememberedIds < 1) {
+            throw new IllegalArgumentException("maxRememberedIds must >= 1");
+        }
+        mRememberedIds = new long[maxRememberedIds];
+        mRememberedPositions = new int[maxRememberedIds];
+        mResolvedPositions = new int[maxRememberedIds];
+    }
+
     /**
      * Remember currently focused entity of the passed RecyclerView. If RecyclerView doesn't contain
      * focus, ignore archiving and stick to the former remembered entity.
@@ -38,8 +91,31 @@ public class FocusArchivist {
      * @param child child of that recycler view.
      */
     public void archiveFocus(@NonNull RecyclerView rv, View child) {
+        if (child == null) {
+            return;
+        }
         mLastSelectedPos = rv.getChildAdapterPosition(child);
         mLastSelectedId = rv.getChildItemId(child);
+        if (mLastSelectedId != NO_ID) {
+            rememberId(mLastSelectedId, mLastSelectedPos);
+        }
+    }
+
+    /**
+     * Forgets all archived focus.
+     */
+    public void clear() {
+        mLastSelectedPos = NO_POSITION;
+        mLastSelectedId = NO_ID;
+        mRememberedCount = 0;
+    }
+
+    /**
+     * Drops adapter positions resolved for remembered ids, they are looked up again when
+     * needed.  Call it when adapter data changes.
+     */
+    public void invalidatePositions() {
+        Arrays.fill(mResolvedPositions, 0, mRememberedCount, UNRESOLVED);
     }
 
     /**
@@ -50,33 +126,104 @@ public class FocusArchivist {
      */
     @Nullable
     public View getLastFocus(@NonNull RecyclerView rv) {
-        View lastFocused = findLastFocusedViewById(rv, mLastSelectedId);
-
-        if (lastFocused != null) {
-            return lastFocused;
+        RecyclerView.Adapter adapter = rv.getAdapter();
+        if (adapter != null && adapter.hasStableIds()) {
+            for (int i = 0; i < mRememberedCount; i++) {
+                RecyclerView.ViewHolder viewHolder =
+                        rv.findViewHolderForItemId(mRememberedIds[i]);
+                if (viewHolder != null) {
+                    return viewHolder.itemView;
+                }
+                if (findPositionForId(adapter, i) != NO_POSITION) {
+                    // item still exists but is not laid out
+                    return null;
+                }
+            }
         }
 
         return findLastFocusedViewByPos(rv, mLastSelectedPos);
     }
 
     /**
-     * Find focusable view by item id.
+     * Gets adapter position of the most recently focused item that still exists, looking up
+     * stable ids in the adapter when their items are not laid out.  Lay out from this
+     * position to restore focus without scrolling through the items before it.
      *
      * @param rv Recycler view.
-     * @param id Item's id.
-     * @return View with such id, if selection can be restored on it. Null otherwise.
+     * @return Adapter position, NO_POSITION if no remembered stable id is in the adapter.
      */
-    private View findLastFocusedViewById(@NonNull RecyclerView rv, long id) {
+    public int getLastFocusPositionById(@NonNull RecyclerView rv) {
         RecyclerView.Adapter adapter = rv.getAdapter();
-        if (adapter != null && adapter.hasStableIds() && mLastSelectedId != NO_ID) {
-            RecyclerView.ViewHolder viewHolder = rv.findViewHolderForItemId(id);
-            if (viewHolder != null) {
-//                viewHolder.itemView.requestFocus();
-                return viewHolder.itemView;
+        if (adapter == null || !adapter.hasStableIds()) {
+            return NO_POSITION;
+        }
+        for (int i = 0; i < mRememberedCount; i++) {
+            RecyclerView.ViewHolder viewHolder = rv.findViewHolderForItemId(mRememberedIds[i]);
+            int position = viewHolder != null ? viewHolder.getAdapterPosition() : NO_POSITION;
+            if (position == NO_POSITION) {
+                position = findPositionForId(adapter, i);
+            }
+            if (position != NO_POSITION) {
+                mRememberedPositions[i] = position;
+                mResolvedPositions[i] = position;
+                return position;
             }
         }
+        return NO_POSITION;
+    }
 
-        return null;
+    /**
+     * Moves id to the front of remembered ids, dropping the least recent one when full.
+     */
+    private void rememberId(long id, int position) {
+        int index = 0;
+        while (index < mRememberedCount && mRememberedIds[index] != id) {
+            index++;
+        }
+        if (index == mRememberedIds.length) {
+            index--;
+        } else if (index == mRememberedCount) {
+            mRememberedCount++;
+        }
+        System.arraycopy(mRememberedIds, 0, mRememberedIds, 1, index);
+        System.arraycopy(mRememberedPositions, 0, mRememberedPositions, 1, index);
+        System.arraycopy(mResolvedPositions, 0, mResolvedPositions, 1, index);
+        mRememberedIds[0] = id;
+        mRememberedPositions[0] = position;
+        mResolvedPositions[0] = position != NO_POSITION ? position : UNRESOLVED;
+    }
+
+    /**
+     * Finds adapter position of a remembered id, searching outward from its last known
+     * position unless the adapter is an {@link ItemIdResolver}.  The result is kept until
+     * {@link #invalidatePositions()}.
+     */
+    private int findPositionForId(RecyclerView.Adapter adapter, int index) {
+        if (mResolvedPositions[index] == UNRESOLVED) {
+            mResolvedPositions[index] = resolvePositionForId(adapter, index);
+        }
+        return mResolvedPositions[index];
+    }
+
+    private int resolvePositionForId(RecyclerView.Adapter adapter, int index) {
+        final long id = mRememberedIds[index];
+        if (adapter instanceof ItemIdResolver) {
+            return ((ItemIdResolver) adapter).getPositionForItemId(id);
+        }
+        final int count = adapter.getItemCount();
+        if (count == 0) {
+            return NO_POSITION;
+        }
+        final int hint = Math.max(0, Math.min(mRememberedPositions[index], count - 1));
+        for (int low = hint, high = hint + 1; low >= 0 || high < count; low--, high++) {
+            if (low >= 0 && adapter.getItemId(low) == id) {
+                return low;
+            }
+            if (high < count && adapter.getItemId(high) == id) {
+                return high;
+            }
+        }
+        return NO_POSITION;
     }
 
     /**
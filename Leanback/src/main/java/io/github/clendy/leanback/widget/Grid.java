@@ -73,6 +73,33 @@ abstract class Grid {
          */
         public abstract void addItem(Object item, int index, int length, int rowIndex, int edge);
 
+        /**
+         * Create and measure count visible items in one call, typically a column.  Same as
+         * calling createItem() for index, index + 1, ... (append) or index, index - 1, ...
+         * (prepend).  The call is always followed by addItems().
+         * @param index   0-based index of the first item to create
+         * @param count   Number of items to create
+         * @param append  True if new items are after last visible item, false if new items are
+         *                before first visible item.
+         * @param items   items[i] returns created item i that will be passed in addItems() call.
+         * @param sizes   sizes[i] returns length of item i.
+         */
+        public abstract void createItems(int index, int count, boolean append, Object[] items,
+                int[] sizes);
+
+        /**
+         * add items created by createItems() to given rows and given edges.
+         * @param items   The objects returned by createItems()
+         * @param index   0-based index of the first item, same as passed to createItems()
+         * @param count   Number of items
+         * @param append  Same as passed to createItems()
+         * @param sizes   sizes[i] is the size of item i
+         * @param rows    rows[i] is the row index to put item i
+         * @param edges   edges[i] is min_edge of item i if not reversed or max_edge if reversed.
+         */
+        public abstract void addItems(Object[] items, int index, int count, boolean append,
+                int[] sizes, int[] rows, int[] edges);
+
         /**
          * Remove visible item at index.
          * @param index     0-based index of the item in provider
@@ -128,6 +155,14 @@ abstract class Grid {
         return grid;
     }
 
+    /**
+     * Creates a multiple rows grid for items of identical size, item locations are computed
+     * instead of cached.
+     */
+    public static Grid createUniformMultipleRows(int rows) {
+        return new UniformGrid(rows);
+    }
+
     /**
      * Sets the margin between items in a row
      */
@@ -239,6 +274,24 @@ abstract class Grid {
         }
     }
 
+    /**
+     * Sets maximum number of items whose layout results are kept, 0 for no limit.  Only
+     * grids caching layout results of invisible items use it.
+     */
+    public void setCacheLimit(int limit) {
+    }
+
+    /**
+     * Notifies that visible item at index is resized in place to size: its edge facing the
+     * items before it stays (min edge, or max edge when reversed), and items after it keep
+     * their distance to its other edge, so they move by the size change (toward max edge, or
+     * toward min edge when reversed).  Returns true if the grid updated its layout results
+     * accordingly, false if caller must call {@link #invalidateItemsAfter(int)} instead.
+     */
+    public boolean resizeItem(int index, int size) {
+        return false;
+    }
+
     /**
      * Gets the row index of item at given index.
      */
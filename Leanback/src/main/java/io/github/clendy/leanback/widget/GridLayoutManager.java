@@ -17,8 +17,11 @@ import android.content.Context;
 import android.graphics.PointF;
 import android.graphics.Rect;
 import android.os.Bundle;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.os.SystemClock;
 import android.support.v4.util.CircularIntArray;
 import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.LinearSmoothScroller;
@@ -28,15 +31,19 @@ import android.support.v7.widget.RecyclerView.Recycler;
 import android.support.v7.widget.RecyclerView.State;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
 import android.view.Gravity;
 import android.view.View;
 import android.view.View.MeasureSpec;
 import android.view.ViewGroup;
 import android.view.ViewGroup.MarginLayoutParams;
+import android.view.ViewParent;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.HashSet;
 
 import io.github.clendy.leanback.os.TraceHelper;
 
@@ -49,9 +56,10 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
 
     /*
      * LayoutParams for {@link HorizontalGridView} and {@link VerticalGridView}.
-     * The class currently does two internal jobs:
+     * The class currently does three internal jobs:
      * - Saves optical bounds insets.
      * - Caches focus align view center.
+     * - Caches alignment sub views found by view id.
      */
     static class LayoutParams extends RecyclerView.LayoutParams {
 
@@ -67,6 +75,15 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         private int[] mAlignMultiple;
         private ItemAlignmentFacet mAlignmentFacet;
 
+        // Alignment is valid for the size and the item alignment generation it was
+        // calculated with, until facet, insets or content of the view changes.
+        private boolean mAlignmentDirty = true;
+        private int mAlignmentWidth;
+        private int mAlignmentHeight;
+        private int mAlignmentGeneration;
+        // Alignment sub views keyed by view id
+        private SparseArray<View> mAlignmentViews;
+
         public LayoutParams(Context c, AttributeSet attrs) {
             super(c, attrs);
         }
@@ -148,7 +165,57 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         }
 
         void setItemAlignmentFacet(ItemAlignmentFacet facet) {
-            mAlignmentFacet = facet;
+            if (mAlignmentFacet != facet) {
+                mAlignmentFacet = facet;
+                mAlignmentDirty = true;
+            }
+        }
+
+        void invalidateAlignment() {
+            mAlignmentDirty = true;
+        }
+
+        boolean isAlignmentDirty(View view, int generation) {
+            return mAlignmentDirty || mAlignmentGeneration != generation
+                    || mAlignmentWidth != view.getWidth() || mAlignmentHeight != view.getHeight();
+        }
+
+        void onAlignmentUpdated(View view, int generation) {
+            mAlignmentDirty = false;
+            mAlignmentGeneration = generation;
+            mAlignmentWidth = view.getWidth();
+            mAlignmentHeight = view.getHeight();
+        }
+
+        /**
+         * Returns descendant of view with given id, or null if not found.  The result is
+         * cached, and is looked up again only if it is no longer a descendant of view.
+         */
+        View findAlignmentView(View view, int viewId) {
+            View found = mAlignmentViews == null ? null : mAlignmentViews.get(viewId);
+            if (found == null || found.getId() != viewId || !isDescendant(view, found)) {
+                found = view.findViewById(viewId);
+                if (found != null) {
+                    if (mAlignmentViews == null) {
+                        mAlignmentViews = new SparseArray<View>();
+                    }
+                    mAlignmentViews.put(viewId, found);
+                }
+            }
+            return found;
+        }
+
+        private static boolean isDescendant(View view, View descendant) {
+            if (descendant == view) {
+                return true;
+            }
+            for (ViewParent parent = descendant.getParent(); parent != null;
+                 parent = parent.getParent()) {
+                if (parent == view) {
+                    return true;
+                }
+            }
+            return false;
         }
 
         ItemAlignmentFacet getItemAlignmentFacet() {
@@ -176,6 +243,10 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         }
 
         void setOpticalInsets(int leftInset, int topInset, int rightInset, int bottomInset) {
+            if (leftInset != mLeftInset || topInset != mTopInset
+                    || rightInset != mRightInset || bottomInset != mBottomInset) {
+                mAlignmentDirty = true;
+            }
             mLeftInset = leftInset;
             mTopInset = topInset;
             mRightInset = rightInset;
@@ -313,30 +384,36 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
                 // consume pending moves, focus to item on the same row.
                 final int focusedRow = mGrid != null && mFocusPosition != NO_POSITION ?
                         mGrid.getLocation(mFocusPosition).row : NO_POSITION;
+                final SparseBooleanArray positions = focusedRow == NO_POSITION ? null
+                        : getAttachedPositionsInRow(focusedRow);
                 View newSelected = null;
-                for (int i = 0, count = getChildCount(); i < count && mPendingMoves != 0; i++) {
-                    int index = mPendingMoves > 0 ? i : count - 1 - i;
-                    final View child = getChildAt(index);
-                    if (!canScrollTo(child)) {
-                        continue;
-                    }
-                    int position = getPositionByIndex(index);
-                    Grid.Location loc = mGrid.getLocation(position);
-                    if (focusedRow == NO_POSITION || (loc != null && loc.row == focusedRow)) {
-                        if (mFocusPosition == NO_POSITION) {
-                            mFocusPosition = position;
-                            mSubFocusPosition = 0;
-                            newSelected = child;
-                        } else if ((mPendingMoves > 0 && position > mFocusPosition)
-                                || (mPendingMoves < 0 && position < mFocusPosition)) {
-                            mFocusPosition = position;
-                            mSubFocusPosition = 0;
-                            if (mPendingMoves > 0) {
-                                mPendingMoves--;
-                            } else {
-                                mPendingMoves++;
+                if (positions != null) {
+                    newSelected = consumePendingMovesInRow(positions);
+                } else {
+                    for (int i = 0, count = getChildCount(); i < count && mPendingMoves != 0; i++) {
+                        int index = mPendingMoves > 0 ? i : count - 1 - i;
+                        final View child = getChildAt(index);
+                        if (!canScrollTo(child)) {
+                            continue;
+                        }
+                        int position = getPositionByIndex(index);
+                        Grid.Location loc = mGrid.getLocation(position);
+                        if (focusedRow == NO_POSITION || (loc != null && loc.row == focusedRow)) {
+                            if (mFocusPosition == NO_POSITION) {
+                                mFocusPosition = position;
+                                mSubFocusPosition = 0;
+                                newSelected = child;
+                            } else if ((mPendingMoves > 0 && position > mFocusPosition)
+                                    || (mPendingMoves < 0 && position < mFocusPosition)) {
+                                mFocusPosition = position;
+                                mSubFocusPosition = 0;
+                                if (mPendingMoves > 0) {
+                                    mPendingMoves--;
+                                } else {
+                                    mPendingMoves++;
+                                }
+                                newSelected = child;
                             }
-                            newSelected = child;
                         }
                     }
                 }
@@ -356,6 +433,29 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
             }
         }
 
+        /**
+         * Consumes pending moves on attached positions of the focused row, returns the last
+         * view moved to or null if none.
+         */
+        private View consumePendingMovesInRow(SparseBooleanArray positions) {
+            View newSelected = null;
+            final int step = mPendingMoves > 0 ? 1 : -1;
+            for (int i = step > 0 ? findAttachedIndex(positions, mFocusPosition + 1)
+                    : findAttachedIndex(positions, mFocusPosition) - 1;
+                    i >= 0 && i < positions.size() && mPendingMoves != 0; i += step) {
+                final int position = positions.keyAt(i);
+                final View child = findViewByPosition(position);
+                if (child == null || !canScrollTo(child)) {
+                    continue;
+                }
+                mFocusPosition = position;
+                mSubFocusPosition = 0;
+                mPendingMoves -= step;
+                newSelected = child;
+            }
+            return newSelected;
+        }
+
         @Override
         protected void updateActionForInterimTarget(Action action) {
             if (mPendingMoves == 0) {
@@ -403,6 +503,16 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
     // maximum pending movement in one direction.
     private final static int MAX_PENDING_MOVES = 10;
 
+    // adaptive extra layout space covers the distance scrolled in this time at current speed.
+    private final static int ADAPTIVE_SPACE_LOOKAHEAD_MS = 200;
+    // scroll steps further apart than this start measuring speed again.
+    private final static int SCROLL_SPEED_RESET_MS = 100;
+
+    // columns smoothly scrolled at the end of a page jump.
+    private final static int PAGE_JUMP_SETTLE_COLUMNS = 2;
+    // a page jump not laid out in this time is dropped, so key repeats are handled again.
+    private final static int PAGE_JUMP_LAYOUT_TIMEOUT_MS = 500;
+
     private String getTag() {
         return TAG + ":" + mBaseGridView.getId();
     }
@@ -442,6 +552,20 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
     private RecyclerView.State mState;
     private RecyclerView.Recycler mRecycler;
 
+    /**
+     * Attached children keyed by adapter position, updated when a child is added, detached
+     * or scrapped by the layout manager.  An entry is only a hint, {@link #findViewByPosition}
+     * verifies it and falls back to scanning children when it is stale.
+     */
+    private final SparseArray<View> mChildrenByPosition = new SparseArray<View>();
+
+    /**
+     * Attached positions of each row in ascending order, updated when the grid adds or removes
+     * an item.  Used to find neighbors on the same row without scanning children, it is only
+     * trusted while it holds as many positions as there are children.
+     */
+    private SparseBooleanArray[] mAttachedPositionsInRows;
+
     private boolean mInLayout;
     private boolean mInScroll;
     private boolean mInFastRelayout;
@@ -476,6 +600,43 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
      */
     private PendingMoveSmoothScroller mPendingMoveSmoothScroller;
 
+    /**
+     * True if a held D-pad key jumps pages, see {@link #pageJump(int)}.
+     */
+    private boolean mPageJumpEnabled;
+
+    /**
+     * Position and subposition smoothly scrolled to once the current page jump is laid out,
+     * NO_POSITION if no page jump is in progress.
+     */
+    private int mPageJumpTarget = NO_POSITION;
+    private int mPageJumpSubTarget;
+
+    private final Runnable mPageJumpSettleRunnable = new Runnable() {
+        @Override
+        public void run() {
+            final int target = mPageJumpTarget;
+            mPageJumpTarget = NO_POSITION;
+            if (target != NO_POSITION && target < getItemCount()) {
+                scrollToSelection(mBaseGridView, target, mPageJumpSubTarget, true, 0);
+            }
+        }
+    };
+
+    private final Runnable mPageJumpTimeoutRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (DEBUG) Log.d(getTag(), "page jump to " + mPageJumpTarget + " not laid out");
+            mPageJumpTarget = NO_POSITION;
+        }
+    };
+
+    /**
+     * Number of items beyond the laid out items from which a smooth selection first jumps
+     * near the target, 0 if smooth selection always scrolls through all items.
+     */
+    private int mSmoothScrollJumpThreshold;
+
     /**
      * The offset to be applied to mFocusPosition, due to adapter change, on the next
      * layout.  Set to Integer.MIN_VALUE means we should stop adding delta to mFocusPosition
@@ -534,11 +695,28 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
      */
     private boolean mRowSecondarySizeRefresh;
 
+    /**
+     * Item ranges updated since last layout, pairs of first and last position.
+     */
+    private final CircularIntArray mUpdatedRanges = new CircularIntArray(4);
+
+    /**
+     * Secondary layout state children were laid out with in last layout: scroll offset,
+     * gravity, reversed flow, then start and size of each row.  Null if children may have
+     * been laid out with another state since then.
+     */
+    private int[] mSecondaryLayoutState;
+
     /**
      * The maximum measured size of the view.
      */
     private int mMaxSizeSecondary;
 
+    /**
+     * Measure spec mode of the view in secondary direction.
+     */
+    private int mModeSecondary;
+
     /**
      * Margin between items.
      */
@@ -569,6 +747,47 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
      */
     private int mNumRowsRequested = 1;
 
+    /**
+     * True if all items have the same size in primary direction, item locations are then
+     * computed by {@link UniformGrid} instead of cached.
+     */
+    private boolean mUniformItemSize;
+
+    /**
+     * Maximum number of items whose layout results are kept by {@link #mGrid}, 0 for no limit.
+     */
+    private int mLocationCacheLimit;
+
+    /**
+     * True to create and bind views of the next column in scroll direction when main thread
+     * is idle, see {@link #schedulePrefetch(int)}.
+     */
+    private boolean mPrefetchEnabled;
+
+    /**
+     * True to lay out children when this grid is nested in a row prefetched by an outer
+     * grid, see {@link #prefetchNestedRows(View)}.
+     */
+    private boolean mInitialPrefetchEnabled;
+
+    /**
+     * Direction of the last primary scroll: 1 for appending items, -1 for prepending items.
+     */
+    private int mPrefetchDirection;
+
+    /**
+     * Recycler used by the scheduled prefetch, null if no prefetch is scheduled.
+     */
+    private RecyclerView.Recycler mPrefetchRecycler;
+
+    private final MessageQueue.IdleHandler mPrefetchIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            prefetchNextColumn();
+            return false;
+        }
+    };
+
     /**
      * Saves grid information of each view.
      */
@@ -588,6 +807,12 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
      */
     private final ItemAlignment mItemAlignment = new ItemAlignment();
 
+    /**
+     * Incremented when item alignment settings change, child alignments calculated with an
+     * older generation are recalculated.
+     */
+    private int mItemAlignmentGeneration;
+
     /**
      * Dimensions of the view, width or height depending on orientation.
      */
@@ -598,6 +823,55 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
      */
     private int mExtraLayoutSpace;
 
+    /**
+     * Maximum pixels of extra space added on the leading edge while scrolling fast,
+     * 0 if extra space does not adapt to scroll speed.
+     */
+    private int mMaxAdaptiveLayoutSpace;
+
+    /**
+     * Pixels of adaptive extra space at the append side and at the prepend side, only the
+     * side scrolled toward has a non zero value.
+     */
+    private int mAdaptiveSpaceAppend;
+    private int mAdaptiveSpacePrepend;
+
+    /**
+     * Smoothed primary scroll speed in pixels per second, uptime and direction of last
+     * scroll step.
+     */
+    private float mScrollSpeed;
+    private long mLastScrollTime;
+    private boolean mScrollAppending;
+
+    /**
+     * Primary scroll speed in pixels per second from which the grid is scrolling fast,
+     * 0 if never.
+     */
+    private int mFastScrollSpeed;
+    private boolean mFastScrolling;
+
+    /**
+     * ViewHolders laid out since they were last recycled to the pool, whose bind is reused by
+     * getViewForPosition(), and those of them bound while scrolling fast.  Only tracked when
+     * fast scroll speed is set.
+     */
+    private final HashSet<RecyclerView.ViewHolder> mBoundViewHolders = new HashSet<>();
+    private final ArrayList<RecyclerView.ViewHolder> mSkeletonViewHolders = new ArrayList<>();
+
+    private final Runnable mUpgradeViewHoldersRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mBaseGridView.upgradeViewHolders();
+        }
+    };
+
+    /**
+     * Incremented on every layout pass and whenever an item is added or removed, so that
+     * results derived from the laid out items like {@link #getItemEdges(int)} can be cached.
+     */
+    private int mLayoutGeneration;
+
     /**
      * Allow DPAD key to navigate out at the front of the View (where position = 0),
      * default is false.
@@ -644,6 +918,46 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
      */
     private int[] mMeasuredDimension = new int[2];
 
+    /**
+     * Measured sizes of size-stable scrap views, see {@link ItemMeasureFacet}.
+     */
+    private final MeasureCache mScrapMeasureCache = new MeasureCache();
+
+    /**
+     * Measured size of views keyed by view type, only one pair of measure specs is kept for
+     * each view type since all children of the grid are measured with the same specs.
+     */
+    private static final class MeasureCache {
+        // widthSpec, heightSpec, measuredWidth, measuredHeight of each view type
+        private final SparseArray<int[]> mEntries = new SparseArray<int[]>();
+
+        boolean get(int viewType, int widthSpec, int heightSpec, int[] measuredDimension) {
+            final int[] entry = mEntries.get(viewType);
+            if (entry == null || entry[0] != widthSpec || entry[1] != heightSpec) {
+                return false;
+            }
+            measuredDimension[0] = entry[2];
+            measuredDimension[1] = entry[3];
+            return true;
+        }
+
+        void put(int viewType, int widthSpec, int heightSpec, int width, int height) {
+            int[] entry = mEntries.get(viewType);
+            if (entry == null) {
+                entry = new int[4];
+                mEntries.put(viewType, entry);
+            }
+            entry[0] = widthSpec;
+            entry[1] = heightSpec;
+            entry[2] = width;
+            entry[3] = height;
+        }
+
+        void clear() {
+            mEntries.clear();
+        }
+    }
+
     final ViewsStateBundle mChildrenStates = new ViewsStateBundle();
 
     /**
@@ -665,6 +979,7 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         mOrientationHelper = OrientationHelper.createOrientationHelper(this, mOrientation);
         mWindowAlignment.setOrientation(orientation);
         mItemAlignment.setOrientation(orientation);
+        mItemAlignmentGeneration++;
         mForceFullLayout = true;
     }
 
@@ -713,6 +1028,7 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
 
     public void setItemAlignmentOffset(int alignmentOffset) {
         mItemAlignment.mainAxis().setItemAlignmentOffset(alignmentOffset);
+        mItemAlignmentGeneration++;
         updateChildAlignments();
     }
 
@@ -722,6 +1038,7 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
 
     public void setItemAlignmentOffsetWithPadding(boolean withPadding) {
         mItemAlignment.mainAxis().setItemAlignmentOffsetWithPadding(withPadding);
+        mItemAlignmentGeneration++;
         updateChildAlignments();
     }
 
@@ -731,6 +1048,7 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
 
     public void setItemAlignmentOffsetPercent(float offsetPercent) {
         mItemAlignment.mainAxis().setItemAlignmentOffsetPercent(offsetPercent);
+        mItemAlignmentGeneration++;
         updateChildAlignments();
     }
 
@@ -740,6 +1058,7 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
 
     public void setItemAlignmentViewId(int viewId) {
         mItemAlignment.mainAxis().setItemAlignmentViewId(viewId);
+        mItemAlignmentGeneration++;
         updateChildAlignments();
     }
 
@@ -829,6 +1148,96 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         return params.getViewPosition();
     }
 
+    @Override
+    public View findViewByPosition(int position) {
+        View view = mChildrenByPosition.get(position);
+        if (view != null && isChildAtPosition(view, position)) {
+            return view;
+        }
+        view = super.findViewByPosition(position);
+        if (view != null) {
+            mChildrenByPosition.put(position, view);
+        } else {
+            mChildrenByPosition.remove(position);
+        }
+        return view;
+    }
+
+    private void addAttachedPosition(int row, int position) {
+        if (mAttachedPositionsInRows == null || mAttachedPositionsInRows.length != mNumRows) {
+            mAttachedPositionsInRows = new SparseBooleanArray[mNumRows];
+            for (int i = 0; i < mNumRows; i++) {
+                mAttachedPositionsInRows[i] = new SparseBooleanArray();
+            }
+        }
+        if (row >= 0 && row < mNumRows) {
+            mAttachedPositionsInRows[row].put(position, true);
+        }
+    }
+
+    private void removeAttachedPosition(int position) {
+        if (mAttachedPositionsInRows != null) {
+            for (int i = 0; i < mAttachedPositionsInRows.length; i++) {
+                mAttachedPositionsInRows[i].delete(position);
+            }
+        }
+    }
+
+    private void clearAttachedPositions() {
+        if (mAttachedPositionsInRows != null) {
+            for (int i = 0; i < mAttachedPositionsInRows.length; i++) {
+                mAttachedPositionsInRows[i].clear();
+            }
+        }
+    }
+
+    /**
+     * Returns attached positions of the row in ascending order, or null if the positions do
+     * not match the children and the caller must scan children instead.
+     */
+    private SparseBooleanArray getAttachedPositionsInRow(int row) {
+        if (mAttachedPositionsInRows == null || row < 0
+                || row >= mAttachedPositionsInRows.length) {
+            return null;
+        }
+        int count = 0;
+        for (int i = 0; i < mAttachedPositionsInRows.length; i++) {
+            count += mAttachedPositionsInRows[i].size();
+        }
+        return count == getChildCount() ? mAttachedPositionsInRows[row] : null;
+    }
+
+    /**
+     * Returns index of the first of ascending positions that is not smaller than position,
+     * positions.size() if there is none.
+     */
+    private static int findAttachedIndex(SparseBooleanArray positions, int position) {
+        int low = 0;
+        int high = positions.size();
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (positions.keyAt(mid) < position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns true if view is still attached to the RecyclerView and is what
+     * {@link RecyclerView.LayoutManager#findViewByPosition} would return for position.
+     */
+    private boolean isChildAtPosition(View view, int position) {
+        if (view.getParent() != mBaseGridView) {
+            return false;
+        }
+        LayoutParams params = (LayoutParams) view.getLayoutParams();
+        return params.getViewLayoutPosition() == position
+                && (!params.isItemRemoved() || (mState != null && mState.isPreLayout()));
+    }
+
     private int getSubPositionByView(View view, View childView) {
         if (view == null || childView == null) {
             return 0;
@@ -1053,15 +1462,20 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
             int firstVisibleIndex = focusViewWasInTree ? mGrid.getFirstVisibleIndex() : 0;
 
             if (mGrid == null || mNumRows != mGrid.getNumRows() ||
-                    mReverseFlowPrimary != mGrid.isReversedFlow()) {
-                mGrid = Grid.createStaggeredMultipleRows(mNumRows);
+                    mReverseFlowPrimary != mGrid.isReversedFlow() ||
+                    mUniformItemSize != (mGrid instanceof UniformGrid)) {
+                mGrid = mUniformItemSize ? Grid.createUniformMultipleRows(mNumRows)
+                        : Grid.createStaggeredMultipleRows(mNumRows);
                 mGrid.setProvider(mGridProvider);
                 mGrid.setReversedFlow(mReverseFlowPrimary);
+                mGrid.setCacheLimit(mLocationCacheLimit);
             }
             initScrollController();
             updateScrollSecondAxis();
             mGrid.setMargin(mMarginPrimary);
             detachAndScrapAttachedViews(mRecycler);
+            mChildrenByPosition.clear();
+            clearAttachedPositions();
             mGrid.resetVisibleIndex();
             if (mFocusPosition == NO_POSITION) {
                 mBaseGridView.clearFocus();
@@ -1113,6 +1527,13 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
 
     private void measureScrapChild(int position, int widthSpec, int heightSpec,
                                    int[] measuredDimension) {
+        // size-stable view type measured before: no need to create a scrap view
+        final int viewType = mState.isPreLayout() ? RecyclerView.INVALID_TYPE
+                : mBaseGridView.getAdapter().getItemViewType(position);
+        if (viewType != RecyclerView.INVALID_TYPE
+                && mScrapMeasureCache.get(viewType, widthSpec, heightSpec, measuredDimension)) {
+            return;
+        }
         View view = mRecycler.getViewForPosition(position);
         if (view != null) {
             LayoutParams p = (LayoutParams) view.getLayoutParams();
@@ -1123,6 +1544,12 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
             view.measure(childWidthSpec, childHeightSpec);
             measuredDimension[0] = view.getMeasuredWidth();
             measuredDimension[1] = view.getMeasuredHeight();
+            RecyclerView.ViewHolder vh = mBaseGridView.getChildViewHolder(view);
+            if (viewType != RecyclerView.INVALID_TYPE
+                    && getFacet(vh, ItemMeasureFacet.class) != null) {
+                mScrapMeasureCache.put(viewType, widthSpec, heightSpec,
+                        measuredDimension[0], measuredDimension[1]);
+            }
             mRecycler.recycleView(view);
         }
     }
@@ -1192,6 +1619,7 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
                     Log.v(getTag(), "row size secondary changed: " + mRowSizeSecondary[rowIndex] +
                             ", " + rowSize);
                 mRowSizeSecondary[rowIndex] = rowSize;
+                mSecondaryLayoutState = null;
                 changed = true;
             }
         }
@@ -1206,8 +1634,74 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
     private void updateRowSecondarySizeRefresh() {
         mRowSecondarySizeRefresh = processRowSizeSecondary(false);
         if (mRowSecondarySizeRefresh) {
-            if (DEBUG) Log.v(getTag(), "mRowSecondarySizeRefresh now set");
-            forceRequestLayout();
+            if (canRelayoutRowsSecondary()) {
+                // measured size of view does not change, move children to new rows now
+                // instead of waiting for a second layout pass in next frame.
+                if (DEBUG) Log.v(getTag(), "relayout rows secondary in place");
+                relayoutChildrenSecondary();
+                saveSecondaryLayoutState();
+                updateScrollSecondAxis();
+                mRowSecondarySizeRefresh = false;
+            } else {
+                if (DEBUG) Log.v(getTag(), "mRowSecondarySizeRefresh now set");
+                forceRequestLayout();
+            }
+        }
+    }
+
+    /**
+     * Returns true if new row sizes do not change measured size of the view, so children
+     * can be moved to their rows without measuring the view again.
+     */
+    private boolean canRelayoutRowsSecondary() {
+        if (mState == null || mState.isPreLayout()) {
+            return false;
+        }
+        final int paddingSecondary, sizeSecondary;
+        if (mOrientation == HORIZONTAL) {
+            paddingSecondary = getPaddingTop() + getPaddingBottom();
+            sizeSecondary = getHeight();
+        } else {
+            paddingSecondary = getPaddingLeft() + getPaddingRight();
+            sizeSecondary = getWidth();
+        }
+        return getMeasuredSizeSecondary(mModeSecondary, paddingSecondary) == sizeSecondary;
+    }
+
+    /**
+     * Lays out children again at secondary start of their rows, primary position and
+     * size of children are unchanged.
+     */
+    private void relayoutChildrenSecondary() {
+        final int childCount = getChildCount();
+        for (int index = 0; index < childCount; index++) {
+            View view = getChildAt(index);
+            Grid.Location location = mGrid.getLocation(getPositionByIndex(index));
+            if (location == null) {
+                continue;
+            }
+            final int row = location.row;
+            int startSecondary = getRowStartSecondary(row) - mScrollOffsetSecondary;
+            int start = getViewMin(view);
+            int end = start + (mOrientation == HORIZONTAL ? view.getMeasuredWidth()
+                    : view.getMeasuredHeight());
+            layoutChild(row, view, start, end, startSecondary);
+        }
+    }
+
+    /**
+     * Returns measured secondary size of the view for wrap_content rows.
+     */
+    private int getMeasuredSizeSecondary(int modeSecondary, int paddingSecondary) {
+        switch (modeSecondary) {
+            case MeasureSpec.UNSPECIFIED:
+                return getSizeSecondary() + paddingSecondary;
+            case MeasureSpec.AT_MOST:
+                return Math.min(getSizeSecondary() + paddingSecondary, mMaxSizeSecondary);
+            case MeasureSpec.EXACTLY:
+                return mMaxSizeSecondary;
+            default:
+                throw new IllegalStateException("wrong spec");
         }
     }
 
@@ -1215,12 +1709,11 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         if (DEBUG) Log.v(getTag(), "forceRequestLayout");
         // RecyclerView prevents us from requesting layout in many cases
         // (during layout, during scroll, etc.)
-        // For secondary row size wrap_content support we currently need a
-        // second layout pass to update the measured size after having measured
-        // and added child views in layoutChildren.
+        // For secondary row size wrap_content support we need a second layout
+        // pass when measured size of the view changes after having measured and
+        // added child views in layoutChildren, otherwise children are moved to
+        // their rows in place, see updateRowSecondarySizeRefresh().
         // Force the second layout by posting a delayed runnable.
-        // TODO: investigate allowing a second layout pass,
-        // or move child add/measure logic to the measure phase.
         ViewCompat.postOnAnimation(mBaseGridView, mRequestLayoutRunnable);
     }
 
@@ -1255,6 +1748,7 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
                 " sizeSecondary " + sizeSecondary + " " + this);
 
         mMaxSizeSecondary = sizeSecondary;
+        mModeSecondary = modeSecondary;
 
         if (mRowSizeSecondaryRequested == ViewGroup.LayoutParams.WRAP_CONTENT) {
             mNumRows = mNumRowsRequested == 0 ? 1 : mNumRowsRequested;
@@ -1267,21 +1761,7 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
             // Measure all current children and update cached row heights
             processRowSizeSecondary(true);
 
-            switch (modeSecondary) {
-                case MeasureSpec.UNSPECIFIED:
-                    measuredSizeSecondary = getSizeSecondary() + paddingSecondary;
-                    break;
-                case MeasureSpec.AT_MOST:
-                    measuredSizeSecondary = Math.min(getSizeSecondary() + paddingSecondary,
-                            mMaxSizeSecondary);
-                    break;
-                case MeasureSpec.EXACTLY:
-                    measuredSizeSecondary = mMaxSizeSecondary;
-                    break;
-                default:
-                    throw new IllegalStateException("wrong spec");
-            }
-
+            measuredSizeSecondary = getMeasuredSizeSecondary(modeSecondary, paddingSecondary);
         } else {
             switch (modeSecondary) {
                 case MeasureSpec.UNSPECIFIED:
@@ -1390,6 +1870,8 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
 
     private Grid.Provider mGridProvider = new Grid.Provider() {
 
+        private final Object[] mTmpItem = new Object[1];
+
         @Override
         public int getCount() {
             return mState.getItemCount();
@@ -1404,6 +1886,9 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
             LayoutParams lp = (LayoutParams) v.getLayoutParams();
             RecyclerView.ViewHolder vh = mBaseGridView.getChildViewHolder(v);
             lp.setItemAlignmentFacet((ItemAlignmentFacet) getFacet(vh, ItemAlignmentFacet.class));
+            if (mFastScrollSpeed > 0) {
+                trackViewHolderBind(vh);
+            }
             // See recyclerView docs:  we don't need re-add scraped view if it was removed.
             if (!lp.isItemRemoved()) {
                 if (TRACE) TraceHelper.beginSection("addView");
@@ -1412,6 +1897,7 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
                 } else {
                     addView(v, 0);
                 }
+                mChildrenByPosition.put(index, v);
                 if (TRACE) TraceHelper.endSection();
                 if (mChildVisibility != -1) {
 //                    v.setVisibility(mChildVisibility);
@@ -1473,37 +1959,83 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
 
         @Override
         public void addItem(Object item, int index, int length, int rowIndex, int edge) {
-            View v = (View) item;
-            int start, end;
+            edge = resolveEdge(edge);
+            if (!mGrid.isReversedFlow()) {
+                layoutItem((View) item, index, rowIndex, edge, edge + length);
+            } else {
+                layoutItem((View) item, index, rowIndex, edge - length, edge);
+            }
+            onItemsAdded(index, index);
+            dispatchChildLaidOut((View) item, index);
+        }
+
+        @Override
+        public void createItems(int index, int count, boolean append, Object[] items,
+                int[] sizes) {
+            for (int i = 0; i < count; i++) {
+                sizes[i] = createItem(append ? index + i : index - i, append, mTmpItem);
+                items[i] = mTmpItem[0];
+            }
+            mTmpItem[0] = null;
+        }
+
+        @Override
+        public void addItems(Object[] items, int index, int count, boolean append,
+                int[] sizes, int[] rows, int[] edges) {
+            final boolean edgeIsMin = !mGrid.isReversedFlow();
+            int start = 0, end = 0;
+            for (int i = 0; i < count; i++) {
+                // items of a column share edge and size, primary bounds are resolved once
+                if (i == 0 || edges[i] != edges[i - 1] || sizes[i] != sizes[i - 1]) {
+                    final int edge = resolveEdge(edges[i]);
+                    start = edgeIsMin ? edge : edge - sizes[i];
+                    end = start + sizes[i];
+                }
+                layoutItem((View) items[i], append ? index + i : index - i, rows[i], start, end);
+            }
+            final int last = append ? index + count - 1 : index - count + 1;
+            onItemsAdded(Math.min(index, last), Math.max(index, last));
+            for (int i = 0; i < count; i++) {
+                dispatchChildLaidOut((View) items[i], append ? index + i : index - i);
+            }
+        }
+
+        /**
+         * Returns edge passed to addItem(), or the start edge of the grid for the first item.
+         */
+        private int resolveEdge(int edge) {
             if (edge == Integer.MIN_VALUE || edge == Integer.MAX_VALUE) {
-                edge = !mGrid.isReversedFlow() ? mWindowAlignment.mainAxis().getPaddingLow()
+                return !mGrid.isReversedFlow() ? mWindowAlignment.mainAxis().getPaddingLow()
                         : mWindowAlignment.mainAxis().getSize()
                         - mWindowAlignment.mainAxis().getPaddingHigh();
             }
-            boolean edgeIsMin = !mGrid.isReversedFlow();
-            if (edgeIsMin) {
-                start = edge;
-                end = edge + length;
-            } else {
-                start = edge - length;
-                end = edge;
-            }
+            return edge;
+        }
+
+        private void layoutItem(View v, int index, int rowIndex, int start, int end) {
             int startSecondary = getRowStartSecondary(rowIndex) - mScrollOffsetSecondary;
             mChildrenStates.loadView(v, index);
             layoutChild(rowIndex, v, start, end, startSecondary);
+            addAttachedPosition(rowIndex, index);
             if (DEBUG) {
                 Log.d(getTag(), "addView " + index + " " + v);
             }
             if (TRACE) TraceHelper.endSection();
+        }
 
-            if (index == mGrid.getFirstVisibleIndex()) {
+        /**
+         * Updates scroll limits and pending moves once after items [first, last] are added.
+         */
+        private void onItemsAdded(int first, int last) {
+            mLayoutGeneration++;
+            if (first <= mGrid.getFirstVisibleIndex() && mGrid.getFirstVisibleIndex() <= last) {
                 if (!mGrid.isReversedFlow()) {
                     updateScrollMin();
                 } else {
                     updateScrollMax();
                 }
             }
-            if (index == mGrid.getLastVisibleIndex()) {
+            if (first <= mGrid.getLastVisibleIndex() && mGrid.getLastVisibleIndex() <= last) {
                 if (!mGrid.isReversedFlow()) {
                     updateScrollMax();
                 } else {
@@ -1513,6 +2045,9 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
             if (!mInLayout && mPendingMoveSmoothScroller != null) {
                 mPendingMoveSmoothScroller.consumePendingMovesAfterLayout();
             }
+        }
+
+        private void dispatchChildLaidOut(View v, int index) {
             if (mChildLaidOutListener != null) {
                 RecyclerView.ViewHolder vh = mBaseGridView.getChildViewHolder(v);
                 mChildLaidOutListener.onChildLaidOut(mBaseGridView, v, index,
@@ -1524,6 +2059,9 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         public void removeItem(int index) {
             if (TRACE) TraceHelper.beginSection("removeItem");
             View v = findViewByPosition(index);
+            mLayoutGeneration++;
+            mChildrenByPosition.remove(index);
+            removeAttachedPosition(index);
             if (mInLayout) {
                 detachAndScrapView(v, mRecycler);
             } else {
@@ -1580,6 +2118,10 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
             bottom = end;
             right = startSecondary + sizeSecondary;
         }
+        if (v.isLayoutRequested()) {
+            // content of the view may move, e.g. after binding a new item
+            ((LayoutParams) v.getLayoutParams()).invalidateAlignment();
+        }
         v.layout(left, top, right, bottom);
         updateChildOpticalInsets(v, left, top, right, bottom);
         updateChildAlignments(v);
@@ -1594,6 +2136,9 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
 
     private void updateChildAlignments(View v) {
         final LayoutParams p = (LayoutParams) v.getLayoutParams();
+        if (!p.isAlignmentDirty(v, mItemAlignmentGeneration)) {
+            return;
+        }
         if (p.getItemAlignmentFacet() == null) {
             // Fallback to global settings on grid view
             p.setAlignX(mItemAlignment.horizontal.getAlignmentPosition(v));
@@ -1607,6 +2152,7 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
                 p.setAlignX(mItemAlignment.horizontal.getAlignmentPosition(v));
             }
         }
+        p.onAlignmentUpdated(v, mItemAlignmentGeneration);
     }
 
     private void updateChildAlignments() {
@@ -1629,17 +2175,294 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         return mExtraLayoutSpace;
     }
 
+    void setMaxAdaptiveExtraLayoutSpace(int maxExtraLayoutSpace) {
+        if (maxExtraLayoutSpace < 0) {
+            throw new IllegalArgumentException("MaxAdaptiveExtraLayoutSpace must >= 0");
+        }
+        mMaxAdaptiveLayoutSpace = maxExtraLayoutSpace;
+        if (maxExtraLayoutSpace == 0) {
+            resetAdaptiveLayoutSpace();
+        }
+    }
+
+    int getMaxAdaptiveExtraLayoutSpace() {
+        return mMaxAdaptiveLayoutSpace;
+    }
+
+    void setFastScrollSpeed(int pixelsPerSecond) {
+        if (pixelsPerSecond < 0) {
+            throw new IllegalArgumentException("FastScrollSpeed must >= 0");
+        }
+        mFastScrollSpeed = pixelsPerSecond;
+        if (pixelsPerSecond == 0) {
+            mBoundViewHolders.clear();
+            mSkeletonViewHolders.clear();
+        }
+        updateFastScrolling();
+    }
+
+    int getFastScrollSpeed() {
+        return mFastScrollSpeed;
+    }
+
+    boolean isScrollingFast() {
+        return mFastScrolling;
+    }
+
+    /**
+     * Measures speed of primary scroll steps, then updates adaptive extra layout space and
+     * fast scrolling state.
+     */
+    private void updateScrollSpeed(int da) {
+        final long now = SystemClock.uptimeMillis();
+        final long elapsed = Math.max(now - mLastScrollTime, 1);
+        mLastScrollTime = now;
+        final boolean append = mReverseFlowPrimary ? da < 0 : da > 0;
+        final float speed = Math.abs(da) * 1000f / elapsed;
+        if (elapsed > SCROLL_SPEED_RESET_MS || append != mScrollAppending) {
+            // first step after a pause or direction changed
+            mScrollSpeed = speed;
+        } else {
+            mScrollSpeed = (mScrollSpeed + speed) / 2;
+        }
+        mScrollAppending = append;
+        updateAdaptiveLayoutSpace();
+        updateFastScrolling();
+    }
+
+    /**
+     * Grows extra layout space on the side scrolled toward with scroll speed, the other
+     * side gets none.
+     */
+    private void updateAdaptiveLayoutSpace() {
+        if (mMaxAdaptiveLayoutSpace == 0) {
+            return;
+        }
+        final int space = Math.min(mMaxAdaptiveLayoutSpace,
+                (int) (mScrollSpeed * ADAPTIVE_SPACE_LOOKAHEAD_MS / 1000));
+        mAdaptiveSpaceAppend = mScrollAppending ? space : 0;
+        mAdaptiveSpacePrepend = mScrollAppending ? 0 : space;
+    }
+
+    /**
+     * Updates fast scrolling state, ViewHolders bound while scrolling fast are upgraded
+     * before next frame once scrolling slows down.
+     */
+    private void updateFastScrolling() {
+        final boolean fast = mFastScrollSpeed > 0 && mScrollSpeed >= mFastScrollSpeed;
+        if (mFastScrolling && !fast) {
+            ViewCompat.postOnAnimation(mBaseGridView, mUpgradeViewHoldersRunnable);
+        }
+        mFastScrolling = fast;
+    }
+
+    /**
+     * Records a ViewHolder returned by getViewForPosition(): it was bound by the call unless it
+     * is still bound from an earlier layout, and a bind while scrolling fast is a skeleton
+     * bind.  A skeleton bound ViewHolder reused from the view cache after scrolling slowed
+     * down is upgraded before next frame.
+     */
+    private void trackViewHolderBind(RecyclerView.ViewHolder vh) {
+        if (mBoundViewHolders.add(vh)) {
+            if (mFastScrolling) {
+                mSkeletonViewHolders.add(vh);
+            }
+        } else if (!mFastScrolling && mSkeletonViewHolders.contains(vh)) {
+            ViewCompat.postOnAnimation(mBaseGridView, mUpgradeViewHoldersRunnable);
+        }
+    }
+
+    /**
+     * Runs task on attached ViewHolders bound while scrolling fast and stops tracking them,
+     * skeleton bound ViewHolders in the view cache are upgraded when they are laid out again.
+     */
+    void upgradeSkeletonViewHolders(ViewHolderTask task) {
+        for (int i = mSkeletonViewHolders.size() - 1; i >= 0; i--) {
+            final RecyclerView.ViewHolder vh = mSkeletonViewHolders.get(i);
+            if (vh.itemView.getParent() == mBaseGridView) {
+                mSkeletonViewHolders.remove(i);
+                task.run(vh);
+            }
+        }
+    }
+
+    private boolean resetAdaptiveLayoutSpace() {
+        final boolean hadSpace = mAdaptiveSpaceAppend != 0 || mAdaptiveSpacePrepend != 0;
+        mAdaptiveSpaceAppend = 0;
+        mAdaptiveSpacePrepend = 0;
+        return hadSpace;
+    }
+
+    @Override
+    public void onScrollStateChanged(int state) {
+        if (state == RecyclerView.SCROLL_STATE_IDLE) {
+            mScrollSpeed = 0;
+            updateFastScrolling();
+            if (resetAdaptiveLayoutSpace()) {
+                // prune views kept for the fast scroll
+                requestLayout();
+            }
+        }
+    }
+
+    private int getExtraLayoutSpaceAppend() {
+        return mExtraLayoutSpace + mAdaptiveSpaceAppend;
+    }
+
+    private int getExtraLayoutSpacePrepend() {
+        return mExtraLayoutSpace + mAdaptiveSpacePrepend;
+    }
+
+    void setUniformItemSize(boolean uniformItemSize) {
+        if (mUniformItemSize == uniformItemSize) {
+            return;
+        }
+        mUniformItemSize = uniformItemSize;
+        mForceFullLayout = true;
+        requestLayout();
+    }
+
+    boolean hasUniformItemSize() {
+        return mUniformItemSize;
+    }
+
+    void setLocationCacheLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("LocationCacheLimit must >= 0");
+        }
+        mLocationCacheLimit = limit;
+        if (mGrid != null) {
+            mGrid.setCacheLimit(limit);
+        }
+    }
+
+    int getLocationCacheLimit() {
+        return mLocationCacheLimit;
+    }
+
+    void setPrefetchEnabled(boolean enabled) {
+        mPrefetchEnabled = enabled;
+        if (!enabled) {
+            cancelPrefetch();
+            mBaseGridView.setPrefetchViewCacheSize(0);
+        }
+    }
+
+    boolean isPrefetchEnabled() {
+        return mPrefetchEnabled;
+    }
+
+    void setInitialPrefetchEnabled(boolean enabled) {
+        mInitialPrefetchEnabled = enabled;
+    }
+
+    boolean isInitialPrefetchEnabled() {
+        return mInitialPrefetchEnabled;
+    }
+
+    /**
+     * Schedules creating and binding views of the next column in given direction when main
+     * thread becomes idle after the current frame, so the next scroll step of a key repeat
+     * picks them up from the recycler's view cache instead of creating them while drawing.
+     * The view cache has one slot per row reserved for them, see
+     * {@link BaseGridView#setPrefetchViewCacheSize(int)}.
+     */
+    private void schedulePrefetch(int direction) {
+        if (!mPrefetchEnabled) {
+            return;
+        }
+        mPrefetchDirection = direction;
+        if (mPrefetchRecycler == null) {
+            Looper.myQueue().addIdleHandler(mPrefetchIdleHandler);
+        }
+        mPrefetchRecycler = mRecycler;
+    }
+
+    private void cancelPrefetch() {
+        if (mPrefetchRecycler != null) {
+            Looper.myQueue().removeIdleHandler(mPrefetchIdleHandler);
+            mPrefetchRecycler = null;
+        }
+    }
+
+    private void prefetchNextColumn() {
+        final RecyclerView.Recycler recycler = mPrefetchRecycler;
+        mPrefetchRecycler = null;
+        // positions are not reliable until the next layout, and views of running animations
+        // may be handed out by the recycler.
+        if (recycler == null || mGrid == null || mGrid.getFirstVisibleIndex() < 0
+                || mBaseGridView.getAdapter() == null || mBaseGridView.isLayoutRequested()
+                || mBaseGridView.hasPendingAdapterUpdates()
+                || mBaseGridView.isAnimating()) {
+            return;
+        }
+        if (TRACE) TraceHelper.beginSection("prefetch");
+        // row count may change in measure, keep one reserved cache slot per row
+        mBaseGridView.setPrefetchViewCacheSize(mNumRows);
+        final int itemCount = getItemCount();
+        int first, last;
+        if (mPrefetchDirection > 0) {
+            first = mGrid.getLastVisibleIndex() + 1;
+            last = Math.min(first + mNumRows, itemCount) - 1;
+        } else {
+            last = mGrid.getFirstVisibleIndex() - 1;
+            first = Math.max(last - mNumRows + 1, 0);
+        }
+        for (int position = first; position <= last; position++) {
+            if (findViewByPosition(position) == null) {
+                // bound view goes to a reserved slot of the view cache, and is reused without
+                // binding again unless more views than the reserved slots are recycled first
+                View view = recycler.getViewForPosition(position);
+                prefetchNestedRows(view);
+                recycler.recycleView(view);
+            }
+        }
+        if (TRACE) TraceHelper.endSection();
+    }
+
+    /**
+     * Measures and lays out a prefetched child when it contains a grid with initial prefetch
+     * enabled.  The nested grid then creates and binds the children from its selected position
+     * that fit in its size, and the row arrives already populated; its layout when the child
+     * is attached only moves existing children.
+     */
+    private void prefetchNestedRows(View view) {
+        // cheap check first, a bound view of a recycled holder often needs no layout
+        if (!view.isLayoutRequested() || !hasInitialPrefetchGrid(view)) {
+            return;
+        }
+        if (TRACE) TraceHelper.beginSection("prefetchNested");
+        measureChild(view);
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+        if (TRACE) TraceHelper.endSection();
+    }
+
+    private static boolean hasInitialPrefetchGrid(View view) {
+        if (view instanceof BaseGridView) {
+            return ((BaseGridView) view).mLayoutManager.isInitialPrefetchEnabled();
+        }
+        if (view instanceof ViewGroup) {
+            final ViewGroup group = (ViewGroup) view;
+            for (int i = 0, count = group.getChildCount(); i < count; i++) {
+                if (hasInitialPrefetchGrid(group.getChildAt(i))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     private void removeInvisibleViewsAtEnd() {
         if (mPruneChild) {
-            mGrid.removeInvisibleItemsAtEnd(mFocusPosition,
-                    mReverseFlowPrimary ? -mExtraLayoutSpace : mSizePrimary + mExtraLayoutSpace);
+            mGrid.removeInvisibleItemsAtEnd(mFocusPosition, mReverseFlowPrimary
+                    ? -getExtraLayoutSpaceAppend() : mSizePrimary + getExtraLayoutSpaceAppend());
         }
     }
 
     private void removeInvisibleViewsAtFront() {
         if (mPruneChild) {
-            mGrid.removeInvisibleItemsAtFront(mFocusPosition,
-                    mReverseFlowPrimary ? mSizePrimary + mExtraLayoutSpace : -mExtraLayoutSpace);
+            mGrid.removeInvisibleItemsAtFront(mFocusPosition, mReverseFlowPrimary
+                    ? mSizePrimary + getExtraLayoutSpacePrepend() : -getExtraLayoutSpacePrepend());
         }
     }
 
@@ -1652,24 +2475,29 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
     }
 
     private void appendVisibleItems() {
-        mGrid.appendVisibleItems(mReverseFlowPrimary ? -mExtraLayoutSpace
-                : mSizePrimary + mExtraLayoutSpace);
+        mGrid.appendVisibleItems(mReverseFlowPrimary ? -getExtraLayoutSpaceAppend()
+                : mSizePrimary + getExtraLayoutSpaceAppend());
     }
 
     private void prependVisibleItems() {
-        mGrid.prependVisibleItems(mReverseFlowPrimary ? mSizePrimary + mExtraLayoutSpace
-                : -mExtraLayoutSpace);
+        mGrid.prependVisibleItems(mReverseFlowPrimary ? mSizePrimary + getExtraLayoutSpacePrepend()
+                : -getExtraLayoutSpacePrepend());
     }
 
     /**
      * Fast layout when there is no structure change, adapter change, etc.
-     * It will layout all views was layout requested or updated, until hit a view
-     * with different size,  then it break and detachAndScrap all views after that.
+     * It will layout all views was layout requested or updated.  When a view changes size,
+     * grid is asked to resize it in place and views after it are moved by the difference;
+     * if grid can not do that, it break and detachAndScrap all views after that.
      */
     private void fastRelayout() {
         boolean invalidateAfter = false;
         final int childCount = getChildCount();
         int position = -1;
+        // distance views are moved by resized views before them
+        int shift = 0;
+        // when rows did not move, only views updated or requesting layout are laid out
+        final boolean partial = isSecondaryLayoutUnchanged();
         for (int index = 0; index < childCount; index++) {
             View view = getChildAt(index);
             position = getPositionByIndex(index);
@@ -1679,32 +2507,58 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
                 invalidateAfter = true;
                 break;
             }
-
-            int startSecondary = getRowStartSecondary(location.row) - mScrollOffsetSecondary;
-            int primarySize, end;
-            int start = getViewMin(view);
+            if (partial && !view.isLayoutRequested() && !isInUpdatedRanges(position)
+                    && !((LayoutParams) view.getLayoutParams()).viewNeedsUpdate()) {
+                if (shift != 0) {
+                    offsetChildPrimary(view, shift);
+                }
+                continue;
+            }
+            // Location is shared by the grid, read the row before any other grid access.
+            final int row = location.row;
+
+            int startSecondary = getRowStartSecondary(row) - mScrollOffsetSecondary;
+            int primarySize, start, end;
+            // the edge facing items before it stays: min edge, or max edge in reversed flow
+            final int oldEdge = (mReverseFlowPrimary ? getViewMax(view) : getViewMin(view))
+                    + shift;
             int oldPrimarySize = getViewPrimarySize(view);
 
             LayoutParams lp = (LayoutParams) view.getLayoutParams();
             if (lp.viewNeedsUpdate()) {
                 int viewIndex = mBaseGridView.indexOfChild(view);
+                // bound again by getViewForPosition()
+                mBoundViewHolders.remove(mBaseGridView.getChildViewHolder(view));
                 detachAndScrapView(view, mRecycler);
                 view = getViewForPosition(position);
                 addView(view, viewIndex);
+                mChildrenByPosition.put(position, view);
+                if (mFastScrollSpeed > 0) {
+                    trackViewHolderBind(mBaseGridView.getChildViewHolder(view));
+                }
             }
 
             if (view.isLayoutRequested()) {
                 measureChild(view);
             }
-            if (mOrientation == HORIZONTAL) {
-                primarySize = view.getMeasuredWidth();
-                end = start + primarySize;
+            primarySize = mOrientation == HORIZONTAL ? view.getMeasuredWidth()
+                    : view.getMeasuredHeight();
+            if (mReverseFlowPrimary) {
+                end = oldEdge;
+                start = end - primarySize;
             } else {
-                primarySize = view.getMeasuredHeight();
+                start = oldEdge;
                 end = start + primarySize;
             }
-            layoutChild(location.row, view, start, end, startSecondary);
+            layoutChild(row, view, start, end, startSecondary);
             if (oldPrimarySize != primarySize) {
+                if (mGrid.resizeItem(position, primarySize)) {
+                    if (DEBUG) Log.d(getTag(), "fastRelayout: view resized at " + position);
+                    // items after it move away from the resized item
+                    shift += mReverseFlowPrimary ? oldPrimarySize - primarySize
+                            : primarySize - oldPrimarySize;
+                    continue;
+                }
                 // size changed invalidate remaining Locations
                 if (DEBUG) Log.d(getTag(), "fastRelayout: view size changed at " + position);
                 invalidateAfter = true;
@@ -1741,6 +2595,8 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         for (int i = getChildCount() - 1; i >= 0; i--) {
             removeAndRecycleViewAt(i, recycler);
         }
+        mChildrenByPosition.clear();
+        clearAttachedPositions();
         if (TRACE) TraceHelper.endSection();
     }
 
@@ -1755,6 +2611,7 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
                     + " mForceFullLayout " + mForceFullLayout);
             Log.v(getTag(), "width " + getWidth() + " height " + getHeight());
         }
+        mLayoutGeneration++;
 
         if (mNumRows == 0) {
             // haven't done measure yet
@@ -1873,6 +2730,19 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         } else {
             updateRowSecondarySizeRefresh();
         }
+        if (!state.isPreLayout()) {
+            if (mPageJumpTarget != NO_POSITION) {
+                mBaseGridView.removeCallbacks(mPageJumpTimeoutRunnable);
+                ViewCompat.postOnAnimation(mBaseGridView, mPageJumpSettleRunnable);
+            }
+            mUpdatedRanges.clear();
+            if (mRowSecondarySizeRefresh) {
+                // children are laid out again with new row sizes in next layout
+                mSecondaryLayoutState = null;
+            } else {
+                saveSecondaryLayoutState();
+            }
+        }
 
         // For fastRelayout, only dispatch event when focus position changes.
         if (mInFastRelayout && mFocusPosition != savedFocusPos) {
@@ -1901,6 +2771,14 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         }
     }
 
+    private void offsetChildPrimary(View view, int increment) {
+        if (mOrientation == VERTICAL) {
+            view.offsetTopAndBottom(increment);
+        } else {
+            view.offsetLeftAndRight(increment);
+        }
+    }
+
     private void offsetChildrenPrimary(int increment) {
         final int childCount = getChildCount();
         if (mOrientation == VERTICAL) {
@@ -1984,6 +2862,7 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
             if (TRACE) TraceHelper.endSection();
             return da;
         }
+        updateScrollSpeed(da);
 
         int childCount = getChildCount();
         boolean updated;
@@ -1999,8 +2878,10 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         if (TRACE) TraceHelper.beginSection("remove");
         if (mReverseFlowPrimary ? da > 0 : da < 0) {
             removeInvisibleViewsAtEnd();
+            schedulePrefetch(-1);
         } else {
             removeInvisibleViewsAtFront();
+            schedulePrefetch(1);
         }
         if (TRACE) TraceHelper.endSection();
         updated |= getChildCount() < childCount;
@@ -2020,6 +2901,10 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         }
         offsetChildrenSecondary(-dy);
         mScrollOffsetSecondary += dy;
+        if (mSecondaryLayoutState != null) {
+            // all children moved together
+            mSecondaryLayoutState[0] = mScrollOffsetSecondary;
+        }
         mBaseGridView.invalidate();
         return dy;
     }
@@ -2196,7 +3081,9 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
                             "not be called before first layout pass");
                     return;
                 }
-                startPositionSmoothScroller(position);
+                if (!jumpBeforeSmoothScroll(position, subposition)) {
+                    startPositionSmoothScroller(position);
+                }
             } else {
                 mForceFullLayout = true;
                 parent.requestLayout();
@@ -2205,6 +3092,44 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         if (TRACE) TraceHelper.endSection();
     }
 
+    void setSmoothScrollJumpThreshold(int itemCount) {
+        if (itemCount < 0) {
+            throw new IllegalArgumentException("SmoothScrollJumpThreshold must >= 0");
+        }
+        mSmoothScrollJumpThreshold = itemCount;
+    }
+
+    int getSmoothScrollJumpThreshold() {
+        return mSmoothScrollJumpThreshold;
+    }
+
+    /**
+     * Lays out from a few columns before a far position instead of smoothly scrolling
+     * through all items in between, the last columns are smoothly scrolled after the jump
+     * is laid out.  Returns false if the position is not beyond the jump threshold.
+     */
+    private boolean jumpBeforeSmoothScroll(int position, int subposition) {
+        if (mSmoothScrollJumpThreshold == 0 || mGrid == null
+                || mGrid.getFirstVisibleIndex() < 0) {
+            return false;
+        }
+        final boolean forward = position > mGrid.getLastVisibleIndex();
+        final int distance = forward ? position - mGrid.getLastVisibleIndex()
+                : mGrid.getFirstVisibleIndex() - position;
+        if (distance <= mSmoothScrollJumpThreshold) {
+            return false;
+        }
+        final int settle = PAGE_JUMP_SETTLE_COLUMNS * mNumRows;
+        mBaseGridView.stopScroll();
+        mFocusPosition = forward ? Math.max(position - settle, 0)
+                : Math.min(position + settle, getItemCount() - 1);
+        mSubFocusPosition = 0;
+        setPageJumpTarget(position, subposition);
+        mForceFullLayout = true;
+        mBaseGridView.requestLayout();
+        return true;
+    }
+
     void startPositionSmoothScroller(int position) {
         LinearSmoothScroller linearSmoothScroller = new GridLinearSmoothScroller() {
             @Override
@@ -2230,6 +3155,77 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         startSmoothScroll(linearSmoothScroller);
     }
 
+    void setPageJumpEnabled(boolean enabled) {
+        mPageJumpEnabled = enabled;
+    }
+
+    boolean isPageJumpEnabled() {
+        return mPageJumpEnabled;
+    }
+
+    /**
+     * Moves selection by a page in the given focus direction without creating the items in
+     * between: selection jumps to a few columns before the target, and the last columns are
+     * smoothly scrolled after the jump is laid out.  Returns true if the movement is handled,
+     * false if the direction is not the primary direction or there is no page to jump.
+     */
+    boolean pageJump(int direction) {
+        final int movement = getMovement(direction);
+        if (!mPageJumpEnabled || (movement != NEXT_ITEM && movement != PREV_ITEM)
+                || !mScrollEnabled || !mLayoutEnabled || mGrid == null
+                || mGrid.getFirstVisibleIndex() < 0 || mFocusPosition == NO_POSITION) {
+            return false;
+        }
+        if (mPageJumpTarget != NO_POSITION || mBaseGridView.isLayoutRequested()) {
+            // previous jump is not settled yet, drop the key repeat
+            return true;
+        }
+        final int itemCount = getItemCount();
+        // a page is the columns currently laid out, the focus stays in its row
+        final int page = Math.max(mNumRows, (mGrid.getLastVisibleIndex()
+                - mGrid.getFirstVisibleIndex() + 1) / mNumRows * mNumRows);
+        int target = mFocusPosition + (movement == NEXT_ITEM ? page : -page);
+        if (target >= itemCount) {
+            target -= (target - itemCount + mNumRows) / mNumRows * mNumRows;
+        } else if (target < 0) {
+            target += (mNumRows - 1 - target) / mNumRows * mNumRows;
+        }
+        if (target == mFocusPosition || target < 0 || target >= itemCount) {
+            return false;
+        }
+        final int settle = PAGE_JUMP_SETTLE_COLUMNS * mNumRows;
+        if (Math.abs(target - mFocusPosition) <= settle) {
+            scrollToSelection(mBaseGridView, target, 0, true, 0);
+            return true;
+        }
+        mBaseGridView.stopScroll();
+        scrollToSelection(mBaseGridView, target > mFocusPosition ? target - settle
+                : target + settle, 0, false, 0);
+        if (mBaseGridView.isLayoutRequested()) {
+            setPageJumpTarget(target, 0);
+        } else {
+            scrollToSelection(mBaseGridView, target, 0, true, 0);
+        }
+        return true;
+    }
+
+    /**
+     * Sets the position smoothly scrolled to once the requested layout is done, the target is
+     * dropped if no layout arrives in {@link #PAGE_JUMP_LAYOUT_TIMEOUT_MS}.
+     */
+    private void setPageJumpTarget(int position, int subposition) {
+        mPageJumpTarget = position;
+        mPageJumpSubTarget = subposition;
+        mBaseGridView.removeCallbacks(mPageJumpTimeoutRunnable);
+        mBaseGridView.postDelayed(mPageJumpTimeoutRunnable, PAGE_JUMP_LAYOUT_TIMEOUT_MS);
+    }
+
+    private void cancelPageJump() {
+        mPageJumpTarget = NO_POSITION;
+        mBaseGridView.removeCallbacks(mPageJumpTimeoutRunnable);
+        mBaseGridView.removeCallbacks(mPageJumpSettleRunnable);
+    }
+
     private void processPendingMovement(boolean forward) {
         if (forward ? hasCreatedLastItem() : hasCreatedFirstItem()) {
             return;
@@ -2269,6 +3265,8 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
     @Override
     public void onItemsChanged(RecyclerView recyclerView) {
         if (DEBUG) Log.v(getTag(), "onItemsChanged");
+        mUpdatedRanges.clear();
+        mSecondaryLayoutState = null;
         mFocusPositionOffset = 0;
         mChildrenStates.clear();
     }
@@ -2319,6 +3317,54 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         for (int i = positionStart, end = positionStart + itemCount; i < end; i++) {
             mChildrenStates.remove(i);
         }
+        if (itemCount > 0) {
+            mUpdatedRanges.addLast(positionStart);
+            mUpdatedRanges.addLast(positionStart + itemCount - 1);
+        }
+    }
+
+    private boolean isInUpdatedRanges(int position) {
+        for (int i = 0, size = mUpdatedRanges.size(); i < size; i += 2) {
+            if (position >= mUpdatedRanges.get(i) && position <= mUpdatedRanges.get(i + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if children laid out in last layout are still at the secondary position
+     * they would be laid out now, so fastRelayout() can skip children that did not change.
+     */
+    private boolean isSecondaryLayoutUnchanged() {
+        final int[] state = mSecondaryLayoutState;
+        if (state == null || state.length != 3 + 2 * mNumRows
+                || state[0] != mScrollOffsetSecondary || state[1] != mGravity
+                || state[2] != (mReverseFlowSecondary ? 1 : 0)) {
+            return false;
+        }
+        for (int row = 0; row < mNumRows; row++) {
+            if (state[3 + 2 * row] != getRowStartSecondary(row)
+                    || state[4 + 2 * row] != getRowSizeSecondary(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void saveSecondaryLayoutState() {
+        int[] state = mSecondaryLayoutState;
+        if (state == null || state.length != 3 + 2 * mNumRows) {
+            state = new int[3 + 2 * mNumRows];
+        }
+        state[0] = mScrollOffsetSecondary;
+        state[1] = mGravity;
+        state[2] = mReverseFlowSecondary ? 1 : 0;
+        for (int row = 0; row < mNumRows; row++) {
+            state[3 + 2 * row] = getRowStartSecondary(row);
+            state[4 + 2 * row] = getRowSizeSecondary(row);
+        }
+        mSecondaryLayoutState = state;
     }
 
     @Override
@@ -2655,6 +3701,10 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
             return true;
         }
         final int focusedRow = mGrid.getLocation(pos).row;
+        final SparseBooleanArray positions = getAttachedPositionsInRow(focusedRow);
+        if (positions != null) {
+            return findAttachedIndex(positions, pos) > 0;
+        }
         for (int i = getChildCount() - 1; i >= 0; i--) {
             int position = getPositionByIndex(i);
             Grid.Location loc = mGrid.getLocation(position);
@@ -2667,6 +3717,133 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         return false;
     }
 
+    /**
+     * Returns true if an item after pos is on the same row, or may be when items after the
+     * last laid out item are not created.
+     */
+    private boolean hasNextViewInSameRow(int pos, int row) {
+        if (mGrid.getLastVisibleIndex() < getItemCount() - 1) {
+            return true;
+        }
+        final SparseBooleanArray positions = getAttachedPositionsInRow(row);
+        if (positions != null) {
+            return findAttachedIndex(positions, pos + 1) < positions.size();
+        }
+        for (int i = getChildCount() - 1; i >= 0; i--) {
+            int position = getPositionByIndex(i);
+            Grid.Location loc = mGrid.getLocation(position);
+            if (loc != null && loc.row == row && position > pos) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int getLayoutGeneration() {
+        return mLayoutGeneration;
+    }
+
+    /**
+     * Returns edges of the grid that the item at position is laid out against, a combination
+     * of BaseGridView.EDGE_XXX, or 0 if the item is not laid out.
+     */
+    int getItemEdges(int position) {
+        final int itemCount = getItemCount();
+        if (mGrid == null || position < 0 || position >= itemCount
+                || position < mGrid.getFirstVisibleIndex()
+                || position > mGrid.getLastVisibleIndex()) {
+            return 0;
+        }
+        final Grid.Location loc = mGrid.getLocation(position);
+        if (loc == null) {
+            return 0;
+        }
+        final boolean firstRow = loc.row == 0;
+        final boolean lastRow = loc.row == mNumRows - 1 || position == itemCount - 1;
+        final boolean firstColumn;
+        final boolean lastColumn;
+        if (mGrid instanceof UniformGrid) {
+            firstColumn = position < mNumRows;
+            lastColumn = position / mNumRows == (itemCount - 1) / mNumRows;
+        } else {
+            firstColumn = !hasPreviousViewInSameRow(position);
+            lastColumn = !hasNextViewInSameRow(position, loc.row);
+        }
+        final boolean primaryLow = mReverseFlowPrimary ? lastColumn : firstColumn;
+        final boolean primaryHigh = mReverseFlowPrimary ? firstColumn : lastColumn;
+        final boolean secondaryLow = mReverseFlowSecondary ? lastRow : firstRow;
+        final boolean secondaryHigh = mReverseFlowSecondary ? firstRow : lastRow;
+        int edges = 0;
+        if (mOrientation == HORIZONTAL) {
+            edges |= primaryLow ? BaseGridView.EDGE_LEFT : 0;
+            edges |= primaryHigh ? BaseGridView.EDGE_RIGHT : 0;
+            edges |= secondaryLow ? BaseGridView.EDGE_TOP : 0;
+            edges |= secondaryHigh ? BaseGridView.EDGE_BOTTOM : 0;
+        } else {
+            edges |= primaryLow ? BaseGridView.EDGE_TOP : 0;
+            edges |= primaryHigh ? BaseGridView.EDGE_BOTTOM : 0;
+            edges |= secondaryLow ? BaseGridView.EDGE_LEFT : 0;
+            edges |= secondaryHigh ? BaseGridView.EDGE_RIGHT : 0;
+        }
+        return edges;
+    }
+
+    /**
+     * Finds the item view focus moves to from a focused item view without comparing rectangles
+     * of all children: the neighbor on the same row in primary direction, or the adjacent row
+     * of the same column in secondary direction when items have uniform size.  Returns null
+     * if the target can not be decided from positions, caller should use FocusFinder then.
+     */
+    View findNextFocusInGrid(View focused, int direction) {
+        if (mGrid == null || mFocusSearchDisabled || mPendingMoveSmoothScroller != null
+                || focused == null || focused.getParent() != mBaseGridView) {
+            return null;
+        }
+        final int focusedPos = getPositionByView(focused);
+        if (focusedPos == NO_POSITION) {
+            return null;
+        }
+        final int movement = getMovement(direction);
+        int target = NO_POSITION;
+        if (movement == NEXT_ITEM || movement == PREV_ITEM) {
+            if (mGrid instanceof UniformGrid) {
+                target = focusedPos + (movement == NEXT_ITEM ? mNumRows : -mNumRows);
+            } else {
+                final Grid.Location loc = mGrid.getLocation(focusedPos);
+                final SparseBooleanArray positions = loc == null ? null
+                        : getAttachedPositionsInRow(loc.row);
+                if (positions == null) {
+                    return null;
+                }
+                final int index = movement == NEXT_ITEM
+                        ? findAttachedIndex(positions, focusedPos + 1)
+                        : findAttachedIndex(positions, focusedPos) - 1;
+                if (index >= 0 && index < positions.size()) {
+                    target = positions.keyAt(index);
+                }
+            }
+        } else if (mGrid instanceof UniformGrid) {
+            // getMovement() maps screen directions to rows without secondary reversed flow
+            // (RTL in vertical orientation), where higher rows are on the low side
+            final boolean higherRow = (movement == NEXT_ROW) != mReverseFlowSecondary;
+            final int row = focusedPos % mNumRows;
+            if (higherRow && row < mNumRows - 1) {
+                target = focusedPos + 1;
+            } else if (!higherRow && row > 0) {
+                target = focusedPos - 1;
+            }
+        }
+        if (target < 0 || target >= getItemCount()) {
+            return null;
+        }
+        final View view = findViewByPosition(target);
+        if (view == null || view.getVisibility() != View.VISIBLE || !view.isFocusable()
+                || (view.isInTouchMode() && !view.isFocusableInTouchMode())) {
+            return null;
+        }
+        return view;
+    }
+
     @Override
     public boolean onAddFocusables(RecyclerView recyclerView,
                                    ArrayList<View> views, int direction, int focusableMode) {
@@ -2701,6 +3878,27 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
             // Add focusables of next neighbor of same row on the focus search direction.
             if (mGrid != null) {
                 final int focusableCount = views.size();
+                final SparseBooleanArray positions = focusedRow == NO_POSITION ? null
+                        : getAttachedPositionsInRow(focusedRow);
+                if (positions != null) {
+                    // walk positions of the focused row away from the focused position
+                    final int step = movement == NEXT_ITEM ? 1 : -1;
+                    for (int i = movement == NEXT_ITEM
+                            ? findAttachedIndex(positions, focusedPos + 1)
+                            : findAttachedIndex(positions, focusedPos) - 1;
+                            i >= 0 && i < positions.size(); i += step) {
+                        final View child = findViewByPosition(positions.keyAt(i));
+                        if (child == null || child.getVisibility() != View.VISIBLE
+                                || !child.hasFocusable()) {
+                            continue;
+                        }
+                        child.addFocusables(views, direction, focusableMode);
+                        if (views.size() > focusableCount) {
+                            break;
+                        }
+                    }
+                    return true;
+                }
                 for (int i = 0, count = getChildCount(); i < count; i++) {
                     int index = movement == NEXT_ITEM ? i : count - 1 - i;
                     final View child = getChildAt(index);
@@ -2921,10 +4119,21 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
         }
     }
 
+    @Override
+    public void onDetachedFromWindow(RecyclerView view, RecyclerView.Recycler recycler) {
+        cancelPrefetch();
+        cancelPageJump();
+        super.onDetachedFromWindow(view, recycler);
+    }
+
     @Override
     public void onAdapterChanged(RecyclerView.Adapter oldAdapter,
                                  RecyclerView.Adapter newAdapter) {
         if (DEBUG) Log.v(getTag(), "onAdapterChanged to " + newAdapter);
+        cancelPrefetch();
+        cancelPageJump();
+        mBoundViewHolders.clear();
+        mSkeletonViewHolders.clear();
         if (oldAdapter != null) {
             discardLayoutInfo();
             mFocusPosition = NO_POSITION;
@@ -2941,6 +4150,13 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
 
     private void discardLayoutInfo() {
         mGrid = null;
+        cancelPageJump();
+        mScrollSpeed = 0;
+        resetAdaptiveLayoutSpace();
+        mSecondaryLayoutState = null;
+        mChildrenByPosition.clear();
+        clearAttachedPositions();
+        mScrapMeasureCache.clear();
         mRowSizeSecondary = null;
         mRowSecondarySizeRefresh = false;
     }
@@ -3036,6 +4252,9 @@ final class GridLayoutManager extends RecyclerView.LayoutManager {
     }
 
     void onChildRecycled(RecyclerView.ViewHolder holder) {
+        // unbound in the pool, bound again when laid out
+        mBoundViewHolders.remove(holder);
+        mSkeletonViewHolders.remove(holder);
         final int position = holder.getAdapterPosition();
         if (position != NO_POSITION) {
             mChildrenStates.saveOffscreenView(holder.itemView, position);
@@ -26,12 +26,12 @@ import android.graphics.Rect;
 import android.graphics.Shader;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
-import android.util.Log;
 import android.util.TypedValue;
 import android.view.KeyEvent;
 import android.view.View;
 
 import io.github.clendy.leanback.R;
+import io.github.clendy.leanback.utils.LayoutManagerHelper;
 
 
 /**
@@ -53,8 +53,6 @@ import io.github.clendy.leanback.R;
  */
 public class HorizontalGridView extends BaseGridView {
 
-    private static final String TAG = HorizontalGridView.class.getSimpleName();
-
     private boolean mFadingLowEdge;
     private boolean mFadingHighEdge;
 
@@ -69,6 +67,8 @@ public class HorizontalGridView extends BaseGridView {
     private int mHighFadeShaderOffset;
     private Rect mTempRect = new Rect();
 
+    private final LayoutManagerHelper mManagerHelper = LayoutManagerHelper.newInstance(this);
+
     protected boolean focusOutLeft;
     protected boolean focusOutTop;
     protected boolean focusOutRight;
@@ -418,13 +418,7 @@ public class HorizontalGridView extends BaseGridView {
      * @return true if the focus on the leftmost column
      */
     public boolean isFocusOnLeftmostColumn() {
-        if (mLayoutManager != null && getFocusedChild() != null) {
-            int position = mLayoutManager.getPosition(getFocusedChild());
-            Log.i(TAG, "isFocusOnLeftmostColumn, position:" + position);
-            Log.i(TAG, "isFocusOnLeftmostColumn, getNumRows():" + mLayoutManager.getNumRows());
-            return position < mLayoutManager.getNumRows();
-        }
-        return false;
+        return mManagerHelper.isFocusOnLeftmostColumn();
     }
 
     /**
@@ -433,13 +427,7 @@ public class HorizontalGridView extends BaseGridView {
      * @return true if the focus on the topmost row
      */
     public boolean isFocusOnTopmostRow() {
-        if (mLayoutManager != null && getFocusedChild() != null) {
-            int position = mLayoutManager.getPosition(getFocusedChild());
-            Log.i(TAG, "isFocusOnTopmostRow, position:" + position);
-            Log.i(TAG, "isFocusOnTopmostRow, getNumRows():" + mLayoutManager.getNumRows());
-            return position % mLayoutManager.getNumRows() == 0;
-        }
-        return false;
+        return mManagerHelper.isFocusOnTopmostRow();
     }
 
     /**
@@ -448,18 +436,7 @@ public class HorizontalGridView extends BaseGridView {
      * @return true if the focus on the bottom column
      */
     public boolean isFocusOnRightmostColumn() {
-        if (mLayoutManager != null && getFocusedChild() != null) {
-            int position = mLayoutManager.getPosition(getFocusedChild());
-            int rowCount = mLayoutManager.getItemCount() / mLayoutManager.getNumRows();
-            int rowNum = position / mLayoutManager.getNumRows();
-            Log.i(TAG, "isFocusOnRightmostColumn, position:" + position);
-            Log.i(TAG, "isFocusOnRightmostColumn, getNumRows():" + mLayoutManager.getNumRows());
-            Log.i(TAG, "isFocusOnRightmostColumn, rowCount:" + rowCount);
-            Log.i(TAG, "isFocusOnRightmostColumn, rowNum:" + rowNum);
-            return rowNum == rowCount - 1;
-        }
-
-        return false;
+        return mManagerHelper.isFocusOnRightmostColumn();
     }
 
     /**
@@ -470,16 +447,7 @@ public class HorizontalGridView extends BaseGridView {
      * @return true if the focus on the rightmost column
      */
     public boolean isFocusOnRightmostColumn(View focus, int position) {
-        if (mLayoutManager != null && focus != null) {
-            int rowCount = mLayoutManager.getItemCount() / mLayoutManager.getNumRows();
-            int rowNum = position / mLayoutManager.getNumRows();
-            Log.i(TAG, "isFocusOnRightmostColumn, position:" + position);
-            Log.i(TAG, "isFocusOnRightmostColumn, getNumRows():" + mLayoutManager.getNumRows());
-            Log.i(TAG, "isFocusOnRightmostColumn, rowCount:" + rowCount);
-            Log.i(TAG, "isFocusOnRightmostColumn, rowNum:" + rowNum);
-            return rowNum == rowCount - 1;
-        }
-        return false;
+        return focus != null && (getItemEdges(position) & EDGE_RIGHT) != 0;
     }
 
     /**
@@ -488,17 +456,7 @@ public class HorizontalGridView extends BaseGridView {
      * @return true if the focus on the bottommost row
      */
     public boolean isFocusOnBottommostRow() {
-        if (mLayoutManager != null && getFocusedChild() != null) {
-            int position = mLayoutManager.getPosition(getFocusedChild());
-            Log.i(TAG, "isFocusOnBottommostRow, position:" + position);
-            Log.i(TAG, "isFocusOnBottommostRow, getNumRows():" + mLayoutManager.getNumRows());
-            if (position % mLayoutManager.getNumRows() == mLayoutManager.getNumRows() - 1) {
-                return true;
-            } else if (position == mLayoutManager.getItemCount() - 1) {
-                return true;
-            }
-        }
-        return false;
+        return mManagerHelper.isFocusOnBottommostRow();
     }
 
     public boolean isFocusOutLeft() {
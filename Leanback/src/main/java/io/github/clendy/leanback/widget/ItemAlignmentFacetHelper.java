@@ -34,7 +34,7 @@ class ItemAlignmentFacetHelper {
         GridLayoutManager.LayoutParams p = (GridLayoutManager.LayoutParams) itemView.getLayoutParams();
         View view = itemView;
         if (facet.mViewId != 0) {
-            view = itemView.findViewById(facet.mViewId);
+            view = p.findAlignmentView(itemView, facet.mViewId);
             if (view == null) {
                 view = itemView;
             }
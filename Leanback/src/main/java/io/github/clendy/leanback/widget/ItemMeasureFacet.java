@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com | yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.leanback.widget;
+
+/**
+ * Optional facet declaring that item views of a view type are size-stable: under the same
+ * measure specs they always measure to the same size, whatever item is bound to them.
+ * <p>
+ * When the facet is provided by the ViewHolder or by {@link FacetProviderAdapter} for the
+ * view type, {@link GridLayoutManager} remembers the measured size of scrap views per view
+ * type and measure spec, so no scrap view is created and bound again to measure wrap_content
+ * rows.  Attached children are still measured as usual, a rebound view needs its content
+ * measured whatever its size is.
+ */
+public final class ItemMeasureFacet {
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com | yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.leanback.widget;
+
+import android.support.v4.util.CircularIntArray;
+
+/**
+ * A circular array of staggered item locations.  Row, offset and size of each item
+ * are kept in three parallel int ring buffers, so adding or removing an item at either
+ * end never allocates an object.  Capacity is always a power of two and doubles when full.
+ *
+ * <p>
+ * The array also keeps a running sum of offsets and, for every row, the ordered list of
+ * items in that row.  Distance between two cached items and the last cached item of a row
+ * are then answered in constant time instead of walking the cache.
+ */
+final class LocationArray {
+
+    private int[] mRows;
+    private int[] mOffsets;
+    private int[] mSizes;
+    // Running sum of offsets: mEdges[n] - mEdges[n - 1] == mOffsets[n].  Only differences
+    // are meaningful, so the base value is arbitrary and int overflow is harmless.
+    private int[] mEdges;
+    private int mHead;
+    private int mTail;
+    private int mCapacityBitmask;
+
+    // Sequence number of the head element, items of a row are stored as sequence numbers
+    // so they stay valid when elements are added in front of the array.
+    private int mHeadSequence;
+    private CircularIntArray[] mRowSequences = new CircularIntArray[0];
+
+    /**
+     * Creates a location array with at least the given capacity.
+     */
+    LocationArray(int minCapacity) {
+        if (minCapacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int arrayCapacity = minCapacity;
+        // If minCapacity isn't a power of 2, round up to the next highest power of 2.
+        if (Integer.bitCount(minCapacity) != 1) {
+            arrayCapacity = Integer.highestOneBit(minCapacity - 1) << 1;
+        }
+        mCapacityBitmask = arrayCapacity - 1;
+        mRows = new int[arrayCapacity];
+        mOffsets = new int[arrayCapacity];
+        mSizes = new int[arrayCapacity];
+        mEdges = new int[arrayCapacity];
+    }
+
+    private void doubleCapacity() {
+        int n = mRows.length;
+        int r = n - mHead;
+        int newCapacity = n << 1;
+        if (newCapacity < 0) {
+            throw new RuntimeException("Max array capacity exceeded");
+        }
+        mRows = copy(mRows, newCapacity, r);
+        mOffsets = copy(mOffsets, newCapacity, r);
+        mSizes = copy(mSizes, newCapacity, r);
+        mEdges = copy(mEdges, newCapacity, r);
+        mHead = 0;
+        mTail = n;
+        mCapacityBitmask = newCapacity - 1;
+    }
+
+    private int[] copy(int[] src, int newCapacity, int r) {
+        int[] a = new int[newCapacity];
+        System.arraycopy(src, mHead, a, 0, r);
+        System.arraycopy(src, 0, a, r, mHead);
+        return a;
+    }
+
+    /**
+     * Adds a location in front of the array.
+     */
+    void addFirst(int row, int offset, int size) {
+        final boolean empty = size() == 0;
+        final int edge = empty ? 0 : mEdges[mHead] - mOffsets[mHead];
+        mHead = (mHead - 1) & mCapacityBitmask;
+        mRows[mHead] = row;
+        mOffsets[mHead] = offset;
+        mSizes[mHead] = size;
+        mEdges[mHead] = edge;
+        mHeadSequence--;
+        getRowSequences(row).addFirst(mHeadSequence);
+        if (mHead == mTail) {
+            doubleCapacity();
+        }
+    }
+
+    /**
+     * Adds a location at the end of the array.
+     */
+    void addLast(int row, int offset, int size) {
+        final int count = size();
+        final int edge = count == 0 ? 0 : mEdges[(mTail - 1) & mCapacityBitmask] + offset;
+        mRows[mTail] = row;
+        mOffsets[mTail] = offset;
+        mSizes[mTail] = size;
+        mEdges[mTail] = edge;
+        getRowSequences(row).addLast(mHeadSequence + count);
+        mTail = (mTail + 1) & mCapacityBitmask;
+        if (mTail == mHead) {
+            doubleCapacity();
+        }
+    }
+
+    /**
+     * Removes multiple locations from front of the array.
+     */
+    void removeFromStart(int numOfElements) {
+        if (numOfElements <= 0) {
+            return;
+        }
+        if (numOfElements > size()) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        for (int i = 0; i < numOfElements; i++) {
+            mRowSequences[mRows[(mHead + i) & mCapacityBitmask]].popFirst();
+        }
+        mHead = (mHead + numOfElements) & mCapacityBitmask;
+        mHeadSequence += numOfElements;
+    }
+
+    /**
+     * Removes multiple locations from end of the array.
+     */
+    void removeFromEnd(int numOfElements) {
+        if (numOfElements <= 0) {
+            return;
+        }
+        if (numOfElements > size()) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        for (int i = 1; i <= numOfElements; i++) {
+            mRowSequences[mRows[(mTail - i) & mCapacityBitmask]].popLast();
+        }
+        mTail = (mTail - numOfElements) & mCapacityBitmask;
+    }
+
+    /**
+     * Removes all locations.
+     */
+    void clear() {
+        mTail = mHead;
+        for (int i = 0; i < mRowSequences.length; i++) {
+            if (mRowSequences[i] != null) {
+                mRowSequences[i].clear();
+            }
+        }
+    }
+
+    /**
+     * Returns number of locations in the array.
+     */
+    int size() {
+        return (mTail - mHead) & mCapacityBitmask;
+    }
+
+    private int physicalIndex(int n) {
+        if (n < 0 || n >= size()) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        return (mHead + n) & mCapacityBitmask;
+    }
+
+    int getRow(int n) {
+        return mRows[physicalIndex(n)];
+    }
+
+    int getOffset(int n) {
+        return mOffsets[physicalIndex(n)];
+    }
+
+    int getSize(int n) {
+        return mSizes[physicalIndex(n)];
+    }
+
+    /**
+     * Changes offset of location n to its previous location.  Running sums are shifted on
+     * the shorter side of n, so updating the second location after addFirst() is O(1): the
+     * edges of all locations before n, or of n and all locations after it, change.
+     */
+    void setOffset(int n, int offset) {
+        final int index = physicalIndex(n);
+        final int delta = offset - mOffsets[index];
+        mOffsets[index] = offset;
+        if (delta == 0) {
+            return;
+        }
+        final int count = size();
+        if (n <= count - n) {
+            for (int i = 0; i < n; i++) {
+                mEdges[(mHead + i) & mCapacityBitmask] -= delta;
+            }
+        } else {
+            for (int i = n; i < count; i++) {
+                mEdges[(mHead + i) & mCapacityBitmask] += delta;
+            }
+        }
+    }
+
+    void setSize(int n, int size) {
+        mSizes[physicalIndex(n)] = size;
+    }
+
+    /**
+     * Returns edge of location n relative to an arbitrary origin shared by all locations.
+     * The value stays unchanged when locations are added or removed, but
+     * {@link #setOffset(int, int)} may shift it; only differences between edges
+     * ({@link #getOffsetSum(int, int)}) are stable across setOffset().
+     */
+    int getEdge(int n) {
+        return mEdges[physicalIndex(n)];
+    }
+
+    /**
+     * Returns sum of offsets of locations (from, to], i.e. distance from edge of location
+     * from to edge of location to.
+     */
+    int getOffsetSum(int from, int to) {
+        return mEdges[physicalIndex(to)] - mEdges[physicalIndex(from)];
+    }
+
+    /**
+     * Returns the last location in given row, or -1 if the row has no location.
+     */
+    int getLastInRow(int row) {
+        final CircularIntArray sequences = getRowSequencesIfExists(row);
+        if (sequences == null) {
+            return -1;
+        }
+        return sequences.getLast() - mHeadSequence;
+    }
+
+    /**
+     * Binary searches the locations of given row, returns the nearest location at or before n
+     * (forward is false) or at or after n (forward is true), -1 if there is no such location.
+     */
+    int findInRow(int row, int n, boolean forward) {
+        final CircularIntArray sequences = getRowSequencesIfExists(row);
+        if (sequences == null) {
+            return -1;
+        }
+        final int target = mHeadSequence + n;
+        int low = 0;
+        int high = sequences.size() - 1;
+        // find first element that is >= target (forward) or > target (backward)
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int sequence = sequences.get(mid);
+            if (sequence < target || (!forward && sequence == target)) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        final int found = forward ? low : low - 1;
+        if (found < 0 || found >= sequences.size()) {
+            return -1;
+        }
+        return sequences.get(found) - mHeadSequence;
+    }
+
+    private CircularIntArray getRowSequencesIfExists(int row) {
+        if (row < 0 || row >= mRowSequences.length || mRowSequences[row] == null
+                || mRowSequences[row].isEmpty()) {
+            return null;
+        }
+        return mRowSequences[row];
+    }
+
+    private CircularIntArray getRowSequences(int row) {
+        if (row >= mRowSequences.length) {
+            CircularIntArray[] rows = new CircularIntArray[row + 1];
+            System.arraycopy(mRowSequences, 0, rows, 0, mRowSequences.length);
+            mRowSequences = rows;
+        }
+        if (mRowSequences[row] == null) {
+            mRowSequences[row] = new CircularIntArray();
+        }
+        return mRowSequences[row];
+    }
+}
@@ -65,7 +65,15 @@ import java.util.Map;
  * In addition to view creation and binding, Presenter allows dynamic interface (facet) to
  * be added: {  #setFacet(Class, Object)}.  Supported facets:
  * {  ItemAlignmentFacet} is used by {  HorizontalGridView} and
- * {  VerticalGridView} to customize child alignment.
+ * {  VerticalGridView} to customize child alignment, {  ItemMeasureFacet} declares
+ * size-stable item views, so the grid views measure rows without creating scrap views.
+ * <p>
+ * A Presenter may bind in two phases: while a grid view is scrolling fast
+ * ({  BaseGridView#isScrollingFast()}) the adapter calls
+ * {  #onBindViewHolderSkeleton(ViewHolder, Object)}; the grid view remembers the holders
+ * bound while scrolling fast, and its upgrade task calls
+ * {  #onUpgradeViewHolder(ViewHolder, Object)} on those of them shown when scrolling slows
+ * down or stops.
  */
 public abstract class Presenter implements FacetProvider {
     /**
@@ -126,6 +134,25 @@ public abstract class Presenter implements FacetProvider {
      */
     public abstract void onBindViewHolder(ViewHolder viewHolder, Object item);
 
+    /**
+     * Binds a {  View} to an item with the parts that are cheap to bind, e.g. text and
+     * placeholders, while the grid is scrolling fast.  Expensive parts such as images are
+     * bound later in {  #onUpgradeViewHolder(ViewHolder, Object)} once the item is still
+     * shown when scrolling slows down.  The default implementation does a full bind with
+     * {  #onBindViewHolder(ViewHolder, Object)}.
+     */
+    public void onBindViewHolderSkeleton(ViewHolder viewHolder, Object item) {
+        onBindViewHolder(viewHolder, item);
+    }
+
+    /**
+     * Completes a {  View} bound by {  #onBindViewHolderSkeleton(ViewHolder, Object)}
+     * to a full bind of the same item.  Presenters overriding the skeleton bind must override
+     * this method too, the default implementation does nothing.
+     */
+    public void onUpgradeViewHolder(ViewHolder viewHolder, Object item) {
+    }
+
     /**
      * Unbinds a {  View} from an item. Any expensive references may be
      * released here, and any fields that are not bound for every item should be
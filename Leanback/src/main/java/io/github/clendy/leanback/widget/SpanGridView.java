@@ -47,6 +47,12 @@ public class SpanGridView extends RecyclerView implements View.OnFocusChangeList
 
     private int mPendingSelectionInt = NO_POSITION;
 
+    /**
+     * Remembered focused position to select once on next layout, see
+     * {@link #restoreFocusPosition()}.
+     */
+    private int mPendingFocusRestore = NO_POSITION;
+
 
     private FocusArchivist mFocusArchivist = new FocusArchivist();
 
@@ -56,6 +62,31 @@ public class SpanGridView extends RecyclerView implements View.OnFocusChangeList
     private LayoutManagerHelper mManagerHelper;
     private SpanLayoutManager mSpanLayoutManager;
 
+    private final AdapterDataObserver mFocusRestoreObserver = new AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            mFocusArchivist.invalidatePositions();
+            if (hasFocus()) {
+                restoreFocusPosition();
+            }
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mFocusArchivist.invalidatePositions();
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mFocusArchivist.invalidatePositions();
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            mFocusArchivist.invalidatePositions();
+        }
+    };
+
     public interface OnKeyInterceptListener {
         boolean onInterceptKeyEvent(KeyEvent event);
     }
@@ -159,9 +190,41 @@ public class SpanGridView extends RecyclerView implements View.OnFocusChangeList
 
     @Override
     public void setAdapter(Adapter adapter) {
+        Adapter oldAdapter = getAdapter();
+        if (oldAdapter != null) {
+            oldAdapter.unregisterAdapterDataObserver(mFocusRestoreObserver);
+        }
         mPendingSelectionInt = NO_POSITION;
-        mFocusArchivist = new FocusArchivist();
+        mPendingFocusRestore = NO_POSITION;
         super.setAdapter(adapter);
+        if (adapter != null) {
+            adapter.registerAdapterDataObserver(mFocusRestoreObserver);
+        }
+        mFocusArchivist.invalidatePositions();
+        // keep focus memory if items of the new adapter share stable ids with the old one,
+        // like a data change it is restored now when focused, otherwise on focus gain
+        if (mFocusArchivist.getLastFocusPositionById(this) == NO_POSITION) {
+            mFocusArchivist.clear();
+        } else if (hasFocus()) {
+            restoreFocusPosition();
+        }
+    }
+
+    /**
+     * Lays out next pass from the remembered focused item found by stable id, instead of
+     * from the first item and scrolling back, and selects it once that layout is done.
+     * Returns false if no remembered item is found.
+     */
+    private boolean restoreFocusPosition() {
+        final int position = mFocusArchivist.getLastFocusPositionById(this);
+        if (position == NO_POSITION) {
+            return false;
+        }
+        mPendingFocusRestore = position;
+        if (getLayoutManager() != null) {
+            getLayoutManager().scrollToPosition(position);
+        }
+        return true;
     }
 
     @Override
@@ -175,7 +238,12 @@ public class SpanGridView extends RecyclerView implements View.OnFocusChangeList
 
         Log.i(TAG, "onLayout mPendingSelectionInt:" + mPendingSelectionInt);
 
-        if (mPendingSelectionInt != NO_POSITION) {
+        if (mPendingFocusRestore != NO_POSITION) {
+            // one shot, later layouts must not pull focus back to the restored position
+            final int position = mPendingFocusRestore;
+            mPendingFocusRestore = NO_POSITION;
+            setSelectionOnLayout(position);
+        } else if (mPendingSelectionInt != NO_POSITION) {
             setSelectionOnLayout(mPendingSelectionInt);
         } else {
             setSelectionOnFirstLayout();
@@ -251,6 +319,12 @@ public class SpanGridView extends RecyclerView implements View.OnFocusChangeList
         if (result != null) {
             return result;
         }
+        if (mSpanLayoutManager != null && getLayoutManager() == mSpanLayoutManager) {
+            result = mSpanLayoutManager.findNextFocusBySpan(focused, direction);
+            if (result != null) {
+                return result;
+            }
+        }
         FocusFinder ff = FocusFinder.getInstance();
         result = ff.findNextFocus(this, focused, direction);
         if (result != null) {
@@ -266,7 +340,7 @@ public class SpanGridView extends RecyclerView implements View.OnFocusChangeList
             View lastFocusedView = mFocusArchivist.getLastFocus(this);
             if (lastFocusedView != null) {
                 lastFocusedView.requestFocus();
-            } else {
+            } else if (!restoreFocusPosition()) {
                 LayoutManager layoutManager = getLayoutManager();
                 if (layoutManager instanceof LinearLayoutManager) {
                     if (mPendingSelectionInt == -1) {
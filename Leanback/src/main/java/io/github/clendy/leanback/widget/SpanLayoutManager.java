@@ -430,6 +430,73 @@ public class SpanLayoutManager extends GridLayoutManager {
         return true;
     }
 
+    /**
+     * Finds the item view focus moves to from a focused item view by span arithmetic, without
+     * comparing rectangles of all children.  Returns null when items do not all take one span
+     * or the target is not laid out, caller should use FocusFinder then.
+     */
+    View findNextFocusBySpan(View focused, int direction) {
+        if (focused == null || focused.getParent() != mBaseGridView
+                || !(getSpanSizeLookup() instanceof DefaultSpanSizeLookup)) {
+            return null;
+        }
+        final int position = getPositionByView(focused);
+        if (position == NO_POSITION) {
+            return null;
+        }
+        final int spanCount = getSpanCount();
+        final boolean vertical = getOrientation() == VERTICAL;
+        final boolean rtl = getLayoutDirection() == ViewCompat.LAYOUT_DIRECTION_RTL;
+        // lines are laid out toward left or up, spans toward left
+        final boolean reverseLines = getReverseLayout() != (!vertical && rtl);
+        final boolean reverseSpans = vertical && rtl;
+        int lineDelta = 0;
+        int spanDelta = 0;
+        switch (direction) {
+            case View.FOCUS_LEFT:
+                if (vertical) {
+                    spanDelta = reverseSpans ? 1 : -1;
+                } else {
+                    lineDelta = reverseLines ? 1 : -1;
+                }
+                break;
+            case View.FOCUS_RIGHT:
+                if (vertical) {
+                    spanDelta = reverseSpans ? -1 : 1;
+                } else {
+                    lineDelta = reverseLines ? -1 : 1;
+                }
+                break;
+            case View.FOCUS_UP:
+                if (vertical) {
+                    lineDelta = reverseLines ? 1 : -1;
+                } else {
+                    spanDelta = -1;
+                }
+                break;
+            case View.FOCUS_DOWN:
+                if (vertical) {
+                    lineDelta = reverseLines ? -1 : 1;
+                } else {
+                    spanDelta = 1;
+                }
+                break;
+            default:
+                return null;
+        }
+        final int target = position + lineDelta * spanCount + spanDelta;
+        if (target < 0 || target >= getItemCount()
+                || (spanDelta != 0 && target / spanCount != position / spanCount)) {
+            return null;
+        }
+        final View view = findViewByPosition(target);
+        if (view == null || view.getVisibility() != View.VISIBLE || !view.isFocusable()
+                || (view.isInTouchMode() && !view.isFocusableInTouchMode())) {
+            return null;
+        }
+        return view;
+    }
+
     @Override
     public boolean requestChildRectangleOnScreen(RecyclerView parent, View child, Rect rect,
                                                  boolean immediate) {
@@ -13,7 +13,6 @@
  */
 package io.github.clendy.leanback.widget;
 
-import android.support.v4.util.CircularArray;
 import android.support.v4.util.CircularIntArray;
 
 import java.io.PrintWriter;
@@ -31,7 +30,10 @@ import java.io.PrintWriter;
  * scrolls back to 0 and we don't keep history location information, edges of
  * the very beginning of rows will not be aligned. It is recommended to keep a
  * list of tens of thousands of {@link Location}s which will be
- * big enough to remember a typical user's scroll history.
+ * big enough to remember a typical user's scroll history.  Locations are stored in
+ * primitive ring buffers (see {@link LocationArray}) so the cache does not create an
+ * object per item, and indexed by running offset sum and by row so the cache can be
+ * queried without walking it.
  *
  * <p>
  * This class is abstract and can be replaced with different implementations.
@@ -39,7 +41,9 @@ import java.io.PrintWriter;
 abstract class StaggeredGrid extends Grid {
 
     /**
-     * Cached representation of Staggered item.
+     * Cached representation of Staggered item.  Instances returned by
+     * {@link #getLocation(int)} are a shared flyweight over the location cache,
+     * they are read only and only valid until the next call.
      */
     public static class Location extends Grid.Location {
         /**
@@ -61,7 +65,7 @@ abstract class StaggeredGrid extends Grid {
         }
     }
 
-    protected CircularArray<Location> mLocations = new CircularArray<Location>(64);
+    protected LocationArray mLocations = new LocationArray(64);
 
     // mFirstIndex <= mFirstVisibleIndex <= mLastVisibleIndex
     //    <= mFirstIndex + mLocations.size() - 1
@@ -69,6 +73,11 @@ abstract class StaggeredGrid extends Grid {
 
     private Object[] mTmpItem = new Object[1];
 
+    private final Location mTmpLocation = new Location(0, 0, 0);
+
+    // maximum number of cached locations, 0 for no limit
+    private int mCacheLimit;
+
     protected Object mPendingItem;
     protected int mPendingItemSize;
 
@@ -100,14 +109,96 @@ abstract class StaggeredGrid extends Grid {
         if (mLocations.size() == 0) {
             return null;
         }
-        return mLocations.get(index - mFirstIndex);
+        final int n = index - mFirstIndex;
+        mTmpLocation.row = mLocations.getRow(n);
+        mTmpLocation.offset = mLocations.getOffset(n);
+        mTmpLocation.size = mLocations.getSize(n);
+        return mTmpLocation;
+    }
+
+    /**
+     * Returns the row of cached item at index without touching the flyweight {@link Location}.
+     */
+    final int getLocationRow(int index) {
+        return mLocations.getRow(index - mFirstIndex);
+    }
+
+    /**
+     * Returns the offset of cached item at index to its previous item.
+     */
+    final int getLocationOffset(int index) {
+        return mLocations.getOffset(index - mFirstIndex);
+    }
+
+    /**
+     * Returns the size of cached item at index.
+     */
+    final int getLocationSize(int index) {
+        return mLocations.getSize(index - mFirstIndex);
+    }
+
+    /**
+     * Returns edge of cached item at index relative to an origin shared by all cached items.
+     * Unlike {@link Provider#getEdge(int)}, the value does not change when items are scrolled.
+     */
+    final int getLocationEdge(int index) {
+        return mLocations.getEdge(index - mFirstIndex);
+    }
+
+    /**
+     * Returns distance between edges of two cached items, i.e. sum of offsets of items in
+     * (fromIndex, toIndex].
+     */
+    final int getCachedEdgeDistance(int fromIndex, int toIndex) {
+        return mLocations.getOffsetSum(fromIndex - mFirstIndex, toIndex - mFirstIndex);
+    }
+
+    /**
+     * Returns the nearest cached item of the row at or before index (forward is false) or at or
+     * after index (forward is true).  Returns -1 if there is no such item.
+     */
+    final int findCachedIndexInRow(int row, int index, boolean forward) {
+        final int n = mLocations.findInRow(row, index - mFirstIndex, forward);
+        return n < 0 ? -1 : mFirstIndex + n;
+    }
+
+    /**
+     * Sets maximum number of cached {@link Location}s, 0 for no limit.  When the cache
+     * grows over the limit, locations farthest from visible items are trimmed in chunks of a
+     * quarter of the limit.  Locations of visible items are never trimmed.
+     */
+    @Override
+    public final void setCacheLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException();
+        }
+        mCacheLimit = limit;
+        trimLocations();
+    }
+
+    private void trimLocations() {
+        if (mCacheLimit == 0 || mLocations.size() <= mCacheLimit || mFirstVisibleIndex < 0) {
+            return;
+        }
+        final int before = mFirstVisibleIndex - mFirstIndex;
+        final int after = getLastIndex() - mLastVisibleIndex;
+        final int visible = mLastVisibleIndex - mFirstVisibleIndex + 1;
+        // number of invisible locations to keep, split evenly unless one side is short
+        final int keep = Math.max(0, mCacheLimit - (mCacheLimit >> 2) - visible);
+        final int keepBefore = Math.min(before, Math.max(keep >> 1, keep - after));
+        final int keepAfter = Math.min(after, keep - keepBefore);
+        final int removeBefore = before - keepBefore;
+        if (removeBefore > 0) {
+            mLocations.removeFromStart(removeBefore);
+            mFirstIndex += removeBefore;
+        }
+        mLocations.removeFromEnd(after - keepAfter);
     }
 
     @Override
     public final void debugPrint(PrintWriter pw) {
         for (int i = 0, size = mLocations.size(); i < size; i++) {
-            Location loc = mLocations.get(i);
-            pw.print("<" + (mFirstIndex + i) + "," + loc.row + ">");
+            pw.print("<" + (mFirstIndex + i) + "," + mLocations.getRow(i) + ">");
             pw.print(" ");
             pw.println();
         }
@@ -129,6 +220,7 @@ abstract class StaggeredGrid extends Grid {
         } finally {
             mTmpItem[0] = null;
             mPendingItem = null;
+            trimLocations();
         }
     }
 
@@ -148,7 +240,7 @@ abstract class StaggeredGrid extends Grid {
         if (mFirstVisibleIndex >= 0) {
             // prepend visible items from first visible index
             edge = mProvider.getEdge(mFirstVisibleIndex);
-            offset = getLocation(mFirstVisibleIndex).offset;
+            offset = getLocationOffset(mFirstVisibleIndex);
             itemIndex = mFirstVisibleIndex - 1;
         } else {
             // prepend first visible item
@@ -165,10 +257,9 @@ abstract class StaggeredGrid extends Grid {
             }
         }
         for (; itemIndex >= mFirstIndex; itemIndex--) {
-            Location loc = getLocation(itemIndex);
-            int rowIndex = loc.row;
+            int rowIndex = getLocationRow(itemIndex);
             int size = mProvider.createItem(itemIndex, false, mTmpItem);
-            if (size != loc.size) {
+            if (size != getLocationSize(itemIndex)) {
                 mLocations.removeFromStart(itemIndex + 1 - mFirstIndex);
                 mFirstIndex = mFirstVisibleIndex;
                 // pending item will be added in prependVisibleItemsWithoutCache
@@ -180,12 +271,13 @@ abstract class StaggeredGrid extends Grid {
             if (mLastVisibleIndex < 0) {
                 mLastVisibleIndex = itemIndex;
             }
+            onVisibleItemAdded(itemIndex, rowIndex, false);
             mProvider.addItem(mTmpItem[0], itemIndex, size, rowIndex, edge - offset);
             if (!oneColumnMode && checkPrependOverLimit(toLimit)) {
                 return true;
             }
             edge = mProvider.getEdge(itemIndex);
-            offset = loc.offset;
+            offset = getLocationOffset(itemIndex);
             // Check limit after filled a full column
             if (rowIndex == 0) {
                 if (oneColumnMode) {
@@ -201,27 +293,17 @@ abstract class StaggeredGrid extends Grid {
      */
     private int calculateOffsetAfterLastItem(int row) {
         // Find a cached item in same row, if not found, just use last item.
-        int cachedIndex = getLastIndex();
-        boolean foundCachedItemInSameRow = false;
-        while (cachedIndex >= mFirstIndex) {
-            Location loc = getLocation(cachedIndex);
-            if (loc.row == row) {
-                foundCachedItemInSameRow = true;
-                break;
-            }
-            cachedIndex--;
-        }
-        if (!foundCachedItemInSameRow) {
-            cachedIndex = getLastIndex();
+        final int last = mLocations.size() - 1;
+        int cached = mLocations.getLastInRow(row);
+        if (cached < 0) {
+            cached = last;
         }
-        // Assuming the cachedIndex is next to item on the same row, so the
+        // Assuming the cached item is next to item on the same row, so the
         // sum of offset of [cachedIndex + 1, itemIndex] should be size of the
         // cached item plus margin.
-        int offset = isReversedFlow() ?  -getLocation(cachedIndex).size - mMargin:
-                getLocation(cachedIndex).size + mMargin;
-        for (int i = cachedIndex + 1; i <= getLastIndex(); i++) {
-            offset -= getLocation(i).offset;
-        }
+        int offset = isReversedFlow() ?  -mLocations.getSize(cached) - mMargin:
+                mLocations.getSize(cached) + mMargin;
+        offset -= mLocations.getOffsetSum(cached, last);
         return offset;
     }
 
@@ -244,29 +326,30 @@ abstract class StaggeredGrid extends Grid {
                 throw new IllegalStateException();
             }
         }
-        Location oldFirstLoc = mFirstIndex >= 0 ? getLocation(mFirstIndex) : null;
+        boolean hasOldFirst = mFirstIndex >= 0 && mLocations.size() > 0;
         int oldFirstEdge = mProvider.getEdge(mFirstIndex);
-        Location loc = new Location(rowIndex, 0, 0);
-        mLocations.addFirst(loc);
+        int size;
         Object item;
         if (mPendingItem != null) {
-            loc.size = mPendingItemSize;
+            size = mPendingItemSize;
             item = mPendingItem;
             mPendingItem = null;
         } else {
-            loc.size = mProvider.createItem(itemIndex, false, mTmpItem);
+            size = mProvider.createItem(itemIndex, false, mTmpItem);
             item = mTmpItem[0];
         }
+        mLocations.addFirst(rowIndex, 0, size);
         mFirstIndex = mFirstVisibleIndex = itemIndex;
         if (mLastVisibleIndex < 0) {
             mLastVisibleIndex = itemIndex;
         }
-        int thisEdge = !mReversedFlow ? edge - loc.size : edge + loc.size;
-        if (oldFirstLoc != null) {
-            oldFirstLoc.offset = oldFirstEdge - thisEdge;
+        int thisEdge = !mReversedFlow ? edge - size : edge + size;
+        if (hasOldFirst) {
+            mLocations.setOffset(1, oldFirstEdge - thisEdge);
         }
-        mProvider.addItem(item, itemIndex, loc.size, rowIndex, thisEdge);
-        return loc.size;
+        onVisibleItemAdded(itemIndex, rowIndex, false);
+        mProvider.addItem(item, itemIndex, size, rowIndex, thisEdge);
+        return size;
     }
 
     @Override
@@ -285,6 +368,7 @@ abstract class StaggeredGrid extends Grid {
         } finally {
             mTmpItem[0] = null;
             mPendingItem = null;
+            trimLocations();
         }
     }
 
@@ -319,14 +403,13 @@ abstract class StaggeredGrid extends Grid {
         }
         int lastIndex = getLastIndex();
         for (; itemIndex < count && itemIndex <= lastIndex; itemIndex++) {
-            Location loc = getLocation(itemIndex);
             if (edge != Integer.MAX_VALUE) {
-                edge = edge + loc.offset;
+                edge = edge + getLocationOffset(itemIndex);
             }
-            int rowIndex = loc.row;
+            int rowIndex = getLocationRow(itemIndex);
             int size = mProvider.createItem(itemIndex, true, mTmpItem);
-            if (size != loc.size) {
-                loc.size = size;
+            if (size != getLocationSize(itemIndex)) {
+                mLocations.setSize(itemIndex - mFirstIndex, size);
                 mLocations.removeFromEnd(lastIndex - itemIndex);
                 lastIndex = itemIndex;
             }
@@ -334,6 +417,7 @@ abstract class StaggeredGrid extends Grid {
             if (mFirstVisibleIndex < 0) {
                 mFirstVisibleIndex = itemIndex;
             }
+            onVisibleItemAdded(itemIndex, rowIndex, true);
             mProvider.addItem(mTmpItem[0], itemIndex, size, rowIndex, edge);
             if (!oneColumnMode && checkAppendOverLimit(toLimit)) {
                 return true;
@@ -380,17 +464,17 @@ abstract class StaggeredGrid extends Grid {
         } else {
             offset = location - mProvider.getEdge(mLastVisibleIndex);
         }
-        Location loc = new Location(rowIndex, offset, 0);
-        mLocations.addLast(loc);
+        int size;
         Object item;
         if (mPendingItem != null) {
-            loc.size = mPendingItemSize;
+            size = mPendingItemSize;
             item = mPendingItem;
             mPendingItem = null;
         } else {
-            loc.size = mProvider.createItem(itemIndex, true, mTmpItem);
+            size = mProvider.createItem(itemIndex, true, mTmpItem);
             item = mTmpItem[0];
         }
+        mLocations.addLast(rowIndex, offset, size);
         if (mLocations.size() == 1) {
             mFirstIndex = mFirstVisibleIndex = mLastVisibleIndex = itemIndex;
         } else {
@@ -400,8 +484,16 @@ abstract class StaggeredGrid extends Grid {
                 mLastVisibleIndex++;
             }
         }
-        mProvider.addItem(item, itemIndex, loc.size, rowIndex, location);
-        return loc.size;
+        onVisibleItemAdded(itemIndex, rowIndex, true);
+        mProvider.addItem(item, itemIndex, size, rowIndex, location);
+        return size;
+    }
+
+    /**
+     * Called when a cached or new item becomes the first (append is false) or last (append is
+     * true) visible item, after its location is stored and before it is added to provider.
+     */
+    protected void onVisibleItemAdded(int index, int rowIndex, boolean append) {
     }
 
     @Override
@@ -411,7 +503,7 @@ abstract class StaggeredGrid extends Grid {
         }
         if (startPos >= 0) {
             for (int i = startPos; i <= endPos; i++) {
-                CircularIntArray row = mTmpItemPositionsInRows[getLocation(i).row];
+                CircularIntArray row = mTmpItemPositionsInRows[getLocationRow(i)];
                 if (row.size() > 0 && row.getLast() == i - 1) {
                     // update continuous range
                     row.popLast();
@@ -426,6 +518,30 @@ abstract class StaggeredGrid extends Grid {
         return mTmpItemPositionsInRows;
     }
 
+    /**
+     * Updates cached size and offsets of a resized item.  Only single row is supported, in
+     * multiple rows a different size may change the rows of all items after it.
+     */
+    @Override
+    public boolean resizeItem(int index, int size) {
+        if (mNumRows != 1 || index < mFirstVisibleIndex || index > mLastVisibleIndex) {
+            return false;
+        }
+        final int n = index - mFirstIndex;
+        final int delta = size - mLocations.getSize(n);
+        if (delta == 0) {
+            return true;
+        }
+        mLocations.setSize(n, size);
+        if (n + 1 < mLocations.size()) {
+            // edge of the item stays, items after it move by delta away from it: toward max
+            // edge, or toward min edge in reversed flow
+            mLocations.setOffset(n + 1, mLocations.getOffset(n + 1)
+                    + (mReversedFlow ? -delta : delta));
+        }
+        return true;
+    }
+
     @Override
     public void invalidateItemsAfter(int index) {
         super.invalidateItemsAfter(index);
@@ -13,6 +13,8 @@
  */
 package io.github.clendy.leanback.widget;
 
+import java.util.Arrays;
+
 /**
  * A default implementation of {@link StaggeredGrid}.
  *
@@ -21,6 +23,185 @@ package io.github.clendy.leanback.widget;
  */
 final class StaggeredGridDefault extends StaggeredGrid {
 
+    /**
+     * Tournament tree over rows.  Each row holds the edge of one item, each internal node holds
+     * the row of largest edge and the row of smallest edge below it, so the extremes are read
+     * from root and updating a row costs O(log rows).  When two rows have same edge, the row
+     * whose item is nearer to the end being searched wins, the same order a linear scan from
+     * that end visits the rows.
+     * <p>
+     * The tree holds the exact first or last visible item of every row.  The linear scan it
+     * replaces stopped after seeing numRows row switches, which equals that only when items
+     * are filled in consecutive row order.  When rows interleave unevenly (a row repeats before
+     * all rows are seen) the scan could compare an item that is not the last of its row, or
+     * never reach a row at all; the tree always compares the real edge of each row, which is
+     * what appending and prepending need to place the next item.
+     */
+    private static final class RowEdgeTree {
+        private final boolean mPreferLargerIndex;
+        private int mNumRows;
+        private int mLeafCount;
+        private int[] mEdges;
+        private int[] mIndices;
+        private int[] mMaxRows;
+        private int[] mMinRows;
+
+        RowEdgeTree(boolean preferLargerIndex) {
+            mPreferLargerIndex = preferLargerIndex;
+        }
+
+        void reset(int numRows) {
+            if (mNumRows != numRows) {
+                mNumRows = numRows;
+                mLeafCount = numRows == 1 ? 1 : Integer.highestOneBit(numRows - 1) << 1;
+                mEdges = new int[numRows];
+                mIndices = new int[numRows];
+                mMaxRows = new int[mLeafCount << 1];
+                mMinRows = new int[mLeafCount << 1];
+            }
+            Arrays.fill(mIndices, -1);
+            Arrays.fill(mMaxRows, -1);
+            Arrays.fill(mMinRows, -1);
+        }
+
+        boolean hasRow(int row) {
+            return mIndices[row] >= 0;
+        }
+
+        int getEdge(int row) {
+            return mEdges[row];
+        }
+
+        int getIndex(int row) {
+            return mIndices[row];
+        }
+
+        /**
+         * Returns row of largest (findLarge is true) or smallest edge, -1 if tree is empty.
+         */
+        int getRow(boolean findLarge) {
+            return findLarge ? mMaxRows[1] : mMinRows[1];
+        }
+
+        void set(int row, int edge, int index) {
+            mEdges[row] = edge;
+            mIndices[row] = index;
+            int node = mLeafCount + row;
+            mMaxRows[node] = mMinRows[node] = row;
+            for (node >>= 1; node > 0; node >>= 1) {
+                mMaxRows[node] = pick(mMaxRows[node << 1], mMaxRows[(node << 1) + 1], true);
+                mMinRows[node] = pick(mMinRows[node << 1], mMinRows[(node << 1) + 1], false);
+            }
+        }
+
+        private int pick(int row1, int row2, boolean findLarge) {
+            if (row1 < 0) {
+                return row2;
+            } else if (row2 < 0) {
+                return row1;
+            }
+            final int edge1 = mEdges[row1];
+            final int edge2 = mEdges[row2];
+            if (edge1 != edge2) {
+                return (findLarge ? edge1 > edge2 : edge1 < edge2) ? row1 : row2;
+            }
+            return (mPreferLargerIndex ? mIndices[row1] > mIndices[row2]
+                    : mIndices[row1] < mIndices[row2]) ? row1 : row2;
+        }
+    }
+
+    // Last visible item of each row, edge is the end edge of the item (max edge, or min edge
+    // in reversed flow).  Both trees are in getLocationEdge() coordinates, which setOffset()
+    // of the location array may shift: resizeItem() drops the trees, and prepend only shifts
+    // the new first location, before its edge is read.
+    private final RowEdgeTree mLastInRows = new RowEdgeTree(true);
+    // First visible item of each row, edge is the start edge of the item.
+    private final RowEdgeTree mFirstInRows = new RowEdgeTree(false);
+    // Visible range the trees were built for, trees are rebuilt when it does not match.
+    private int mRowEdgesFirstVisible = -1;
+    private int mRowEdgesLastVisible = -1;
+    private boolean mRowEdgesReversed;
+
+    private int getEndEdge(int index) {
+        return mReversedFlow ? getLocationEdge(index) - getLocationSize(index)
+                : getLocationEdge(index) + getLocationSize(index);
+    }
+
+    private boolean isRowEdgesValid(int firstVisible, int lastVisible) {
+        return mRowEdgesFirstVisible == firstVisible && mRowEdgesLastVisible == lastVisible
+                && mRowEdgesFirstVisible >= 0 && mRowEdgesReversed == mReversedFlow;
+    }
+
+    private void setRowEdgesVisibleRange() {
+        mRowEdgesFirstVisible = mFirstVisibleIndex;
+        mRowEdgesLastVisible = mLastVisibleIndex;
+        mRowEdgesReversed = mReversedFlow;
+    }
+
+    private void ensureRowEdges() {
+        if (isRowEdgesValid(mFirstVisibleIndex, mLastVisibleIndex)) {
+            return;
+        }
+        mLastInRows.reset(mNumRows);
+        mFirstInRows.reset(mNumRows);
+        for (int row = 0; row < mNumRows; row++) {
+            int index = findCachedIndexInRow(row, mLastVisibleIndex, false);
+            if (index >= mFirstVisibleIndex) {
+                mLastInRows.set(row, getEndEdge(index), index);
+                index = findCachedIndexInRow(row, mFirstVisibleIndex, true);
+                mFirstInRows.set(row, getLocationEdge(index), index);
+            }
+        }
+        setRowEdgesVisibleRange();
+    }
+
+    @Override
+    protected void onVisibleItemAdded(int index, int rowIndex, boolean append) {
+        if (mFirstVisibleIndex == mLastVisibleIndex) {
+            // the only visible item
+            mLastInRows.reset(mNumRows);
+            mFirstInRows.reset(mNumRows);
+        } else if (append ? !isRowEdgesValid(mFirstVisibleIndex, index - 1)
+                : !isRowEdgesValid(index + 1, mLastVisibleIndex)) {
+            // visible range was changed without notice, rebuild on next query
+            mRowEdgesFirstVisible = mRowEdgesLastVisible = -1;
+            return;
+        }
+        if (append || !mLastInRows.hasRow(rowIndex)) {
+            mLastInRows.set(rowIndex, getEndEdge(index), index);
+        }
+        if (!append || !mFirstInRows.hasRow(rowIndex)) {
+            mFirstInRows.set(rowIndex, getLocationEdge(index), index);
+        }
+        setRowEdgesVisibleRange();
+    }
+
+    @Override
+    public boolean resizeItem(int index, int size) {
+        if (!super.resizeItem(index, size)) {
+            return false;
+        }
+        // edges of visible items changed, rebuild on next query
+        mRowEdgesFirstVisible = mRowEdgesLastVisible = -1;
+        return true;
+    }
+
+    /**
+     * Finds largest or smallest edge among rows of tree, tree edges are converted to
+     * {@link Provider#getEdge(int)} coordinates using item at indexLimit.
+     */
+    private int findRowEdge(RowEdgeTree tree, boolean findLarge, int indexLimit, int[] indices) {
+        ensureRowEdges();
+        final int row = tree.getRow(findLarge);
+        final int value = mProvider.getEdge(indexLimit) + tree.getEdge(row)
+                - getLocationEdge(indexLimit);
+        if (indices != null) {
+            indices[0] = row;
+            indices[1] = tree.getIndex(row);
+        }
+        return value;
+    }
+
     /**
      * Returns the max edge value of item (visible or cached) in a row.  This
      * will be the place to append or prepend item not in cache.
@@ -30,29 +211,16 @@ final class StaggeredGridDefault extends StaggeredGrid {
             return Integer.MIN_VALUE;
         }
         if (mReversedFlow) {
-            int edge = mProvider.getEdge(mFirstVisibleIndex);
-            if (getLocation(mFirstVisibleIndex).row == rowIndex) {
-                return edge;
-            }
-            for (int i = mFirstVisibleIndex + 1; i <= getLastIndex(); i++) {
-                Location loc = getLocation(i);
-                edge += loc.offset;
-                if (loc.row == rowIndex) {
-                    return edge;
-                }
+            int i = findCachedIndexInRow(rowIndex, mFirstVisibleIndex, true);
+            if (i >= 0) {
+                return mProvider.getEdge(mFirstVisibleIndex)
+                        + getCachedEdgeDistance(mFirstVisibleIndex, i);
             }
         } else {
-            int edge = mProvider.getEdge(mLastVisibleIndex);
-            Location loc = getLocation(mLastVisibleIndex);
-            if (loc.row == rowIndex) {
-                return edge + loc.size;
-            }
-            for (int i = mLastVisibleIndex - 1; i >= getFirstIndex(); i--) {
-                edge -= loc.offset;
-                loc = getLocation(i);
-                if (loc.row == rowIndex) {
-                    return edge + loc.size;
-                }
+            int i = findCachedIndexInRow(rowIndex, mLastVisibleIndex, false);
+            if (i >= 0) {
+                return mProvider.getEdge(mLastVisibleIndex)
+                        - getCachedEdgeDistance(i, mLastVisibleIndex) + getLocationSize(i);
             }
         }
         return Integer.MIN_VALUE;
@@ -67,54 +235,51 @@ final class StaggeredGridDefault extends StaggeredGrid {
             return Integer.MAX_VALUE;
         }
         if (mReversedFlow) {
-            int edge = mProvider.getEdge(mLastVisibleIndex);
-            Location loc = getLocation(mLastVisibleIndex);
-            if (loc.row == rowIndex) {
-                return edge - loc.size;
-            }
-            for (int i = mLastVisibleIndex - 1; i >= getFirstIndex(); i--) {
-                edge -= loc.offset;
-                loc = getLocation(i);
-                if (loc.row == rowIndex) {
-                    return edge - loc.size;
-                }
+            int i = findCachedIndexInRow(rowIndex, mLastVisibleIndex, false);
+            if (i >= 0) {
+                return mProvider.getEdge(mLastVisibleIndex)
+                        - getCachedEdgeDistance(i, mLastVisibleIndex) - getLocationSize(i);
             }
         } else {
-            int edge = mProvider.getEdge(mFirstVisibleIndex);
-            if (getLocation(mFirstVisibleIndex).row == rowIndex) {
-                return edge;
-            }
-            for (int i = mFirstVisibleIndex + 1; i <= getLastIndex() ; i++) {
-                Location loc = getLocation(i);
-                edge += loc.offset;
-                if (loc.row == rowIndex) {
-                    return edge;
-                }
+            int i = findCachedIndexInRow(rowIndex, mFirstVisibleIndex, true);
+            if (i >= 0) {
+                return mProvider.getEdge(mFirstVisibleIndex)
+                        + getCachedEdgeDistance(mFirstVisibleIndex, i);
             }
         }
         return Integer.MAX_VALUE;
     }
 
     /**
-     * Note this method has assumption that item is filled either in the same row
-     * next row of last item.  Search until row index wrapped.
+     * With the default index limit the result comes from the row edge trees and covers the
+     * last visible item of every row.  Other index limits use the linear scan, which assumes
+     * item is filled either in the same row or next row of last item and searches until row
+     * index wrapped.
      */
     @Override
     public int findRowMax(boolean findLarge, int indexLimit, int[] indices) {
+        if (indexLimit == (mReversedFlow ? mFirstVisibleIndex : mLastVisibleIndex)
+                && indexLimit >= 0) {
+            return findRowEdge(mReversedFlow ? mFirstInRows : mLastInRows, findLarge,
+                    indexLimit, indices);
+        }
+        return scanRowMax(findLarge, indexLimit, indices);
+    }
+
+    private int scanRowMax(boolean findLarge, int indexLimit, int[] indices) {
         int value;
         int edge = mProvider.getEdge(indexLimit);
-        Location loc = getLocation(indexLimit);
-        int row = loc.row;
+        int row = getLocationRow(indexLimit);
         int index = indexLimit;
         int visitedRows = 1;
         int visitRow = row;
         if (mReversedFlow) {
             value = edge;
             for (int i = indexLimit + 1; visitedRows < mNumRows && i <= mLastVisibleIndex; i++) {
-                loc = getLocation(i);
-                edge += loc.offset;
-                if (loc.row != visitRow) {
-                    visitRow = loc.row;
+                edge += getLocationOffset(i);
+                final int locRow = getLocationRow(i);
+                if (locRow != visitRow) {
+                    visitRow = locRow;
                     visitedRows++;
                     if (findLarge ? edge > value : edge < value) {
                         row = visitRow;
@@ -126,10 +291,10 @@ final class StaggeredGridDefault extends StaggeredGrid {
         } else {
             value = edge + mProvider.getSize(indexLimit);
             for (int i = indexLimit - 1; visitedRows < mNumRows && i >= mFirstVisibleIndex; i--) {
-                edge -= loc.offset;
-                loc = getLocation(i);
-                if (loc.row != visitRow) {
-                    visitRow = loc.row;
+                edge -= getLocationOffset(i + 1);
+                final int locRow = getLocationRow(i);
+                if (locRow != visitRow) {
+                    visitRow = locRow;
                     visitedRows++;
                     int newValue = edge + mProvider.getSize(i);
                     if (findLarge ? newValue > value : newValue < value) {
@@ -148,25 +313,35 @@ final class StaggeredGridDefault extends StaggeredGrid {
     }
 
     /**
-     * Note this method has assumption that item is filled either in the same row
-     * next row of last item.  Search until row index wrapped.
+     * With the default index limit the result comes from the row edge trees and covers the
+     * first visible item of every row.  Other index limits use the linear scan, which assumes
+     * item is filled either in the same row or next row of last item and searches until row
+     * index wrapped.
      */
     @Override
     public int findRowMin(boolean findLarge, int indexLimit, int[] indices) {
+        if (indexLimit == (mReversedFlow ? mLastVisibleIndex : mFirstVisibleIndex)
+                && indexLimit >= 0) {
+            return findRowEdge(mReversedFlow ? mLastInRows : mFirstInRows, findLarge,
+                    indexLimit, indices);
+        }
+        return scanRowMin(findLarge, indexLimit, indices);
+    }
+
+    private int scanRowMin(boolean findLarge, int indexLimit, int[] indices) {
         int value;
         int edge = mProvider.getEdge(indexLimit);
-        Location loc = getLocation(indexLimit);
-        int row = loc.row;
+        int row = getLocationRow(indexLimit);
         int index = indexLimit;
         int visitedRows = 1;
         int visitRow = row;
         if (mReversedFlow) {
             value = edge - mProvider.getSize(indexLimit);
             for (int i = indexLimit - 1; visitedRows < mNumRows && i >= mFirstVisibleIndex; i--) {
-                edge -= loc.offset;
-                loc = getLocation(i);
-                if (loc.row != visitRow) {
-                    visitRow = loc.row;
+                edge -= getLocationOffset(i + 1);
+                final int locRow = getLocationRow(i);
+                if (locRow != visitRow) {
+                    visitRow = locRow;
                     visitedRows++;
                     int newValue = edge - mProvider.getSize(i);
                     if (findLarge ? newValue > value : newValue < value) {
@@ -179,10 +354,10 @@ final class StaggeredGridDefault extends StaggeredGrid {
         } else {
             value = edge;
             for (int i = indexLimit + 1; visitedRows < mNumRows && i <= mLastVisibleIndex; i++) {
-                loc = getLocation(i);
-                edge += loc.offset;
-                if (loc.row != visitRow) {
-                    visitRow = loc.row;
+                edge += getLocationOffset(i);
+                final int locRow = getLocationRow(i);
+                if (locRow != visitRow) {
+                    visitRow = locRow;
                     visitedRows++;
                     if (findLarge ? edge > value : edge < value) {
                         value = edge;
@@ -203,7 +378,7 @@ final class StaggeredGridDefault extends StaggeredGrid {
         boolean wrapped = false;
         if (append) {
             for (int index = mLastVisibleIndex; index >= mFirstVisibleIndex; index--) {
-                int row = getLocation(index).row;
+                int row = getLocationRow(index);
                 if (row == 0) {
                     wrapped = true;
                 } else if (wrapped && row == mNumRows - 1) {
@@ -212,7 +387,7 @@ final class StaggeredGridDefault extends StaggeredGrid {
             }
         } else {
             for (int index = mFirstVisibleIndex; index <= mLastVisibleIndex; index++) {
-                int row = getLocation(index).row;
+                int row = getLocationRow(index);
                 if (row == mNumRows - 1) {
                     wrapped = true;
                 } else if (wrapped && row == 0) {
@@ -236,7 +411,7 @@ final class StaggeredGridDefault extends StaggeredGrid {
                 return false;
             }
             itemIndex = mLastVisibleIndex + 1;
-            rowIndex = getLocation(mLastVisibleIndex).row;
+            rowIndex = getLocationRow(mLastVisibleIndex);
             // find start item index of "previous column"
             int edgeLimitSearchIndex = findRowEdgeLimitSearchIndex(true);
             if (edgeLimitSearchIndex < 0) {
@@ -267,7 +442,7 @@ final class StaggeredGridDefault extends StaggeredGrid {
         } else {
             itemIndex = mStartIndex != START_DEFAULT ? mStartIndex : 0;
             // if there are cached items,  put on next row of last cached item.
-            rowIndex = (mLocations.size() > 0 ? getLocation(getLastIndex()).row + 1 : itemIndex)
+            rowIndex = (mLocations.size() > 0 ? getLocationRow(getLastIndex()) + 1 : itemIndex)
                     % mNumRows;
             edgeLimit = 0;
             edgeLimitIsValid = false;
@@ -336,7 +511,7 @@ final class StaggeredGridDefault extends StaggeredGrid {
                 return false;
             }
             itemIndex = mFirstVisibleIndex - 1;
-            rowIndex = getLocation(mFirstVisibleIndex).row;
+            rowIndex = getLocationRow(mFirstVisibleIndex);
             // find start item index of "previous column"
             int edgeLimitSearchIndex = findRowEdgeLimitSearchIndex(false);
             if (edgeLimitSearchIndex < 0) {
@@ -369,7 +544,7 @@ final class StaggeredGridDefault extends StaggeredGrid {
         } else {
             itemIndex = mStartIndex != START_DEFAULT ? mStartIndex : 0;
             // if there are cached items,  put on previous row of first cached item.
-            rowIndex = (mLocations.size() >= 0 ? getLocation(getFirstIndex()).row + mNumRows - 1
+            rowIndex = (mLocations.size() >= 0 ? getLocationRow(getFirstIndex()) + mNumRows - 1
                     : itemIndex) % mNumRows;
             edgeLimit = 0;
             edgeLimitIsValid = false;
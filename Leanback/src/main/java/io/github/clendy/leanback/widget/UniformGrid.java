@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com | yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.leanback.widget;
+
+import android.support.v4.util.CircularIntArray;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * A Grid for items of identical size.  Item at index is always placed on row
+ * index % numRows, all items of a column share the same edge and edges of other columns
+ * are derived from (size + margin), so no location is cached and any index can be laid
+ * out first without creating the items before it.  Items are created and added a column
+ * at a time through {@link Provider#createItems} and {@link Provider#addItems}.
+ */
+class UniformGrid extends Grid {
+
+    private final Location mTmpLocation = new Location(0);
+    // items, sizes, rows and edges of a column passed to Provider in one call
+    private final Object[] mTmpItems;
+    private final int[] mTmpSizes;
+    private final int[] mTmpRows;
+    private final int[] mTmpEdges;
+
+    UniformGrid(int numRows) {
+        setNumRows(numRows);
+        mTmpItems = new Object[numRows];
+        mTmpSizes = new int[numRows];
+        mTmpRows = new int[numRows];
+        mTmpEdges = new int[numRows];
+    }
+
+    private int getColumn(int index) {
+        return index / mNumRows;
+    }
+
+    @Override
+    public final Location getLocation(int index) {
+        // row is computed from index, share the same Location object.
+        mTmpLocation.row = index % mNumRows;
+        return mTmpLocation;
+    }
+
+    @Override
+    public final void debugPrint(PrintWriter pw) {
+        pw.print("UniformGrid<");
+        pw.print(mFirstVisibleIndex);
+        pw.print(",");
+        pw.print(mLastVisibleIndex);
+        pw.print(">");
+        pw.println();
+    }
+
+    int getStartIndexForAppend() {
+        if (mLastVisibleIndex >= 0) {
+            return mLastVisibleIndex + 1;
+        } else if (mStartIndex != START_DEFAULT) {
+            return Math.min(mStartIndex, mProvider.getCount() - 1);
+        } else {
+            return 0;
+        }
+    }
+
+    int getStartIndexForPrepend() {
+        if (mFirstVisibleIndex >= 0) {
+            return mFirstVisibleIndex - 1;
+        } else if (mStartIndex != START_DEFAULT) {
+            return Math.min(mStartIndex, mProvider.getCount() - 1);
+        } else {
+            return mProvider.getCount() - 1;
+        }
+    }
+
+    @Override
+    protected final boolean prependVisibleItems(int toLimit, boolean oneColumnMode) {
+        if (mProvider.getCount() == 0) {
+            return false;
+        }
+        if (!oneColumnMode && checkPrependOverLimit(toLimit)) {
+            return false;
+        }
+        boolean filledOne = false;
+        for (int index = getStartIndexForPrepend(); index >= 0; ) {
+            // create rest of the column in one call
+            final int count = index % mNumRows + 1;
+            mProvider.createItems(index, count, false, mTmpItems, mTmpSizes);
+            if (mFirstVisibleIndex < 0 || mLastVisibleIndex < 0) {
+                Arrays.fill(mTmpEdges, 0, count,
+                        mReversedFlow ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+                mLastVisibleIndex = index;
+            } else {
+                int edge = mProvider.getEdge(index + 1);
+                boolean newColumn = getColumn(index) != getColumn(index + 1);
+                for (int i = 0; i < count; i++) {
+                    if (!newColumn) {
+                        mTmpEdges[i] = edge;
+                    } else {
+                        mTmpEdges[i] = mReversedFlow ? edge + mMargin + mTmpSizes[i]
+                                : edge - mMargin - mTmpSizes[i];
+                    }
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                mTmpRows[i] = (index - i) % mNumRows;
+            }
+            mFirstVisibleIndex = index - count + 1;
+            mProvider.addItems(mTmpItems, index, count, false, mTmpSizes, mTmpRows, mTmpEdges);
+            Arrays.fill(mTmpItems, 0, count, null);
+            filledOne = true;
+            index -= count;
+            if (oneColumnMode || checkPrependOverLimit(toLimit)) {
+                break;
+            }
+        }
+        return filledOne;
+    }
+
+    @Override
+    protected final boolean appendVisibleItems(int toLimit, boolean oneColumnMode) {
+        final int itemCount = mProvider.getCount();
+        if (itemCount == 0) {
+            return false;
+        }
+        if (!oneColumnMode && checkAppendOverLimit(toLimit)) {
+            // not in one column mode, return immediately if over limit
+            return false;
+        }
+        boolean filledOne = false;
+        for (int index = getStartIndexForAppend(); index < itemCount; ) {
+            // create rest of the column in one call
+            final int count = Math.min(mNumRows - index % mNumRows, itemCount - index);
+            int edge;
+            if (mFirstVisibleIndex < 0 || mLastVisibleIndex < 0) {
+                edge = mReversedFlow ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+                mFirstVisibleIndex = index;
+            } else {
+                edge = mProvider.getEdge(index - 1);
+                if (getColumn(index) != getColumn(index - 1)) {
+                    edge = mReversedFlow ? edge - mProvider.getSize(index - 1) - mMargin
+                            : edge + mProvider.getSize(index - 1) + mMargin;
+                }
+            }
+            mProvider.createItems(index, count, true, mTmpItems, mTmpSizes);
+            Arrays.fill(mTmpEdges, 0, count, edge);
+            for (int i = 0; i < count; i++) {
+                mTmpRows[i] = (index + i) % mNumRows;
+            }
+            mLastVisibleIndex = index + count - 1;
+            mProvider.addItems(mTmpItems, index, count, true, mTmpSizes, mTmpRows, mTmpEdges);
+            Arrays.fill(mTmpItems, 0, count, null);
+            filledOne = true;
+            index += count;
+            if (oneColumnMode || checkAppendOverLimit(toLimit)) {
+                break;
+            }
+        }
+        return filledOne;
+    }
+
+    @Override
+    public final CircularIntArray[] getItemPositionsInRows(int startPos, int endPos) {
+        for (int i = 0; i < mNumRows; i++) {
+            mTmpItemPositionsInRows[i].clear();
+        }
+        if (startPos >= 0) {
+            if (mNumRows == 1) {
+                mTmpItemPositionsInRows[0].addLast(startPos);
+                mTmpItemPositionsInRows[0].addLast(endPos);
+            } else {
+                // items of a row are never continuous, add every position as a single range.
+                for (int i = startPos; i <= endPos; i++) {
+                    CircularIntArray row = mTmpItemPositionsInRows[i % mNumRows];
+                    row.addLast(i);
+                    row.addLast(i);
+                }
+            }
+        }
+        return mTmpItemPositionsInRows;
+    }
+
+    /**
+     * Returns the item index in the column before indexLimit that is still visible
+     * on the last row, or -1 if indexLimit is on the last row or the item is not visible.
+     */
+    private int getVisibleItemInPreviousColumn(int indexLimit) {
+        if (indexLimit % mNumRows == mNumRows - 1) {
+            return -1;
+        }
+        int index = indexLimit - indexLimit % mNumRows - 1;
+        return index >= mFirstVisibleIndex ? index : -1;
+    }
+
+    /**
+     * Returns the item index in the column after indexLimit that is still visible
+     * on the first row, or -1 if indexLimit is on the first row or the item is not visible.
+     */
+    private int getVisibleItemInNextColumn(int indexLimit) {
+        if (indexLimit % mNumRows == 0) {
+            return -1;
+        }
+        int index = indexLimit - indexLimit % mNumRows + mNumRows;
+        return index <= mLastVisibleIndex ? index : -1;
+    }
+
+    @Override
+    protected final int findRowMin(boolean findLarge, int indexLimit, int[] indices) {
+        int edge = mProvider.getEdge(indexLimit);
+        int size = mProvider.getSize(indexLimit);
+        int value = mReversedFlow ? edge - size : edge;
+        int index = indexLimit;
+        // rows not covered by the column of indexLimit start in the adjacent column, which is
+        // always larger: next column when not reversed, previous column when reversed.
+        if (findLarge) {
+            int other = mReversedFlow ? getVisibleItemInPreviousColumn(indexLimit)
+                    : getVisibleItemInNextColumn(indexLimit);
+            if (other >= 0) {
+                value = mReversedFlow ? edge + mMargin : edge + size + mMargin;
+                index = other;
+            }
+        }
+        if (indices != null) {
+            indices[0] = index % mNumRows;
+            indices[1] = index;
+        }
+        return value;
+    }
+
+    @Override
+    protected final int findRowMax(boolean findLarge, int indexLimit, int[] indices) {
+        int edge = mProvider.getEdge(indexLimit);
+        int size = mProvider.getSize(indexLimit);
+        int value = mReversedFlow ? edge : edge + size;
+        int index = indexLimit;
+        // rows not covered by the column of indexLimit end in the adjacent column, which is
+        // always smaller: previous column when not reversed, next column when reversed.
+        if (!findLarge) {
+            int other = mReversedFlow ? getVisibleItemInNextColumn(indexLimit)
+                    : getVisibleItemInPreviousColumn(indexLimit);
+            if (other >= 0) {
+                value = mReversedFlow ? edge - size - mMargin : edge - mMargin;
+                index = other;
+            }
+        }
+        if (indices != null) {
+            indices[0] = index % mNumRows;
+            indices[1] = index;
+        }
+        return value;
+    }
+
+}
@@ -16,11 +16,11 @@ package io.github.clendy.leanback.widget;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.util.AttributeSet;
-import android.util.Log;
 import android.util.TypedValue;
 import android.view.View;
 
 import io.github.clendy.leanback.R;
+import io.github.clendy.leanback.utils.LayoutManagerHelper;
 
 
 /**
@@ -42,7 +42,7 @@ import io.github.clendy.leanback.R;
  */
 public class VerticalGridView extends BaseGridView {
 
-    private static final String TAG = VerticalGridView.class.getSimpleName();
+    private final LayoutManagerHelper mManagerHelper = LayoutManagerHelper.newInstance(this);
 
     protected boolean focusOutLeft;
     protected boolean focusOutTop;
@@ -114,13 +114,7 @@ public class VerticalGridView extends BaseGridView {
      * @return true if the focus on the leftmost column
      */
     public boolean isFocusOnLeftmostColumn() {
-        if (mLayoutManager != null && getFocusedChild() != null) {
-            int position = mLayoutManager.getPosition(getFocusedChild());
-            Log.i(TAG, "isFocusOnLeftmostColumn, position:" + position);
-            Log.i(TAG, "isFocusOnLeftmostColumn, getNumRows():" + mLayoutManager.getNumRows());
-            return position % mLayoutManager.getNumRows() == 0;
-        }
-        return false;
+        return mManagerHelper.isFocusOnLeftmostColumn();
     }
 
     /**
@@ -129,13 +123,7 @@ public class VerticalGridView extends BaseGridView {
      * @return true if the focus on the topmost row
      */
     public boolean isFocusOnTopmostRow() {
-        if (mLayoutManager != null && getFocusedChild() != null) {
-            int position = mLayoutManager.getPosition(getFocusedChild());
-            Log.i(TAG, "isFocusOnTopmostRow, position:" + position);
-            Log.i(TAG, "isFocusOnTopmostRow, getNumRows():" + mLayoutManager.getNumRows());
-            return position < mLayoutManager.getNumRows();
-        }
-        return false;
+        return mManagerHelper.isFocusOnTopmostRow();
     }
 
     /**
@@ -144,17 +132,7 @@ public class VerticalGridView extends BaseGridView {
      * @return true if the focus on the rightmost column
      */
     public boolean isFocusOnRightmostColumn() {
-        if (mLayoutManager != null && getFocusedChild() != null) {
-            int position = mLayoutManager.getPosition(getFocusedChild());
-            Log.i(TAG, "isFocusOnRightmostColumn, position:" + position);
-            Log.i(TAG, "isFocusOnRightmostColumn, getNumRows():" + mLayoutManager.getNumRows());
-            if (position % mLayoutManager.getNumRows() == mLayoutManager.getNumRows() - 1) {
-                return true;
-            } else if (position == mLayoutManager.getItemCount() - 1) {
-                return true;
-            }
-        }
-        return false;
+        return mManagerHelper.isFocusOnRightmostColumn();
     }
 
     /**
@@ -163,18 +141,7 @@ public class VerticalGridView extends BaseGridView {
      * @return true if the focus on the bottom row
      */
     public boolean isFocusOnBottomRow() {
-        if (mLayoutManager != null && getFocusedChild() != null) {
-            int position = mLayoutManager.getPosition(getFocusedChild());
-            int rowCount = mLayoutManager.getItemCount() / mLayoutManager.getNumRows();
-            int rowNum = position / mLayoutManager.getNumRows();
-            Log.i(TAG, "isFocusOnBottomRow, position:" + position);
-            Log.i(TAG, "isFocusOnBottomRow, getNumRows():" + mLayoutManager.getNumRows());
-            Log.i(TAG, "isFocusOnBottomRow, rowCount:" + rowCount);
-            Log.i(TAG, "isFocusOnBottomRow, rowNum:" + rowNum);
-            return rowNum == rowCount - 1;
-        }
-
-        return false;
+        return mManagerHelper.isFocusOnBottommostRow();
     }
 
     /**
@@ -185,16 +152,7 @@ public class VerticalGridView extends BaseGridView {
      * @return true if the focus on the bottom row
      */
     public boolean isFocusOnBottomRow(View focus, int position) {
-        if (mLayoutManager != null && focus != null) {
-            int rowCount = mLayoutManager.getItemCount() / mLayoutManager.getNumRows();
-            int rowNum = position / mLayoutManager.getNumRows();
-            Log.i(TAG, "isFocusOnBottomRow, position:" + position);
-            Log.i(TAG, "isFocusOnBottomRow, getNumRows():" + mLayoutManager.getNumRows());
-            Log.i(TAG, "isFocusOnBottomRow, rowCount:" + rowCount);
-            Log.i(TAG, "isFocusOnBottomRow, rowNum:" + rowNum);
-            return rowNum == rowCount - 1;
-        }
-        return false;
+        return focus != null && (getItemEdges(position) & EDGE_BOTTOM) != 0;
     }
 
     public boolean isFocusOutLeft() {
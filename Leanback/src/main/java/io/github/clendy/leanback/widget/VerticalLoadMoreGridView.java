@@ -183,13 +183,21 @@ public class VerticalLoadMoreGridView extends VerticalGridView {
         if (result != null) {
             return result;
         }
-        // Step.2 search focus by FocusFinder
+        // Step.2 search focus by position of focused item in grid
+        if (getLayoutManager() instanceof GridLayoutManager) {
+            result = ((GridLayoutManager) getLayoutManager()).findNextFocusInGrid(focused,
+                    direction);
+            if (result != null) {
+                return result;
+            }
+        }
+        // Step.3 search focus by FocusFinder
         final FocusFinder ff = FocusFinder.getInstance();
         result = ff.findNextFocus(this, focused, direction);
         if (result != null) {
             return result;
         }
-        // Step.3 search focus by onFocusSearchFailed
+        // Step.4 search focus by onFocusSearchFailed
         if (getLayoutManager() instanceof GridLayoutManager) {
             GridLayoutManager layoutManager = (GridLayoutManager) getLayoutManager();
             if (layoutManager.ensureRecyclerState()) {
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com | yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.leanback.widget;
+
+import android.support.v4.util.CircularIntArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of a {@link Grid} driven by {@link SyntheticProvider}, the grid shows a 1920
+ * pixels window over 100000 items.  Subclasses create the grid under test.
+ */
+@State(Scope.Thread)
+public abstract class GridBenchmark {
+
+    static final int ITEM_COUNT = 100000;
+    static final int ITEM_SIZE = 200;
+    static final int ITEM_MARGIN = 16;
+    static final int WINDOW_SIZE = 1920;
+    static final int SCROLL_STEP = 150;
+
+    Grid mGrid;
+    SyntheticProvider mProvider;
+    // direction of scroll(), flips when reaching either end
+    private boolean mScrollForward;
+
+    abstract Grid createGrid();
+
+    abstract boolean hasMixedSize();
+
+    @Setup
+    public void setup() {
+        mProvider = new SyntheticProvider(ITEM_COUNT, ITEM_SIZE, hasMixedSize());
+        mGrid = createGrid();
+        mGrid.setProvider(mProvider);
+        mGrid.setMargin(ITEM_MARGIN);
+        layoutFromStart();
+        mScrollForward = true;
+    }
+
+    private void layoutFromStart() {
+        mGrid.invalidateItemsAfter(0);
+        mGrid.setStart(0);
+        mProvider.resetScroll();
+        mGrid.appendVisibleItems(WINDOW_SIZE);
+    }
+
+    private void layoutFromEnd() {
+        mGrid.invalidateItemsAfter(0);
+        mGrid.setStart(ITEM_COUNT - 1);
+        mProvider.resetScroll();
+        mGrid.appendVisibleItems(WINDOW_SIZE);
+        mGrid.prependVisibleItems(0);
+    }
+
+    private void scrollForward() {
+        mProvider.scrollBy(SCROLL_STEP);
+        mGrid.appendVisibleItems(WINDOW_SIZE);
+        mGrid.removeInvisibleItemsAtFront(Integer.MAX_VALUE, 0);
+    }
+
+    private void scrollBackward() {
+        mProvider.scrollBy(-SCROLL_STEP);
+        mGrid.prependVisibleItems(0);
+        mGrid.removeInvisibleItemsAtEnd(-1, WINDOW_SIZE);
+    }
+
+    /**
+     * Scrolls one step forward without location cache, starts over from first item after
+     * reaching the end.
+     */
+    @Benchmark
+    public int append() {
+        scrollForward();
+        if (mGrid.getLastVisibleIndex() == ITEM_COUNT - 1) {
+            layoutFromStart();
+        }
+        return mGrid.getLastVisibleIndex();
+    }
+
+    /**
+     * Scrolls one step backward without location cache, starts over from last item after
+     * reaching the start.
+     */
+    @Benchmark
+    public int prepend() {
+        if (mGrid.getFirstVisibleIndex() <= 0) {
+            layoutFromEnd();
+        }
+        scrollBackward();
+        return mGrid.getFirstVisibleIndex();
+    }
+
+    /**
+     * Scrolls one step, going back and forth between both ends so items are laid out from
+     * the location cache once it is filled by the first pass.
+     */
+    @Benchmark
+    public int scroll() {
+        if (mScrollForward) {
+            scrollForward();
+            mScrollForward = mGrid.getLastVisibleIndex() < ITEM_COUNT - 1;
+        } else {
+            scrollBackward();
+            mScrollForward = mGrid.getFirstVisibleIndex() == 0;
+        }
+        return mGrid.getFirstVisibleIndex();
+    }
+
+    /**
+     * Invalidates second half of visible items and lays them out again.
+     */
+    @Benchmark
+    public int invalidateItemsAfter() {
+        int first = mGrid.getFirstVisibleIndex();
+        mGrid.invalidateItemsAfter(first + (mGrid.getLastVisibleIndex() - first + 1) / 2);
+        mGrid.appendVisibleItems(WINDOW_SIZE);
+        return mGrid.getLastVisibleIndex();
+    }
+
+    @Benchmark
+    public CircularIntArray[] getItemPositionsInRows() {
+        return mGrid.getItemPositionsInRows();
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com | yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.leanback.widget;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * {@link GridBenchmark} of {@link SingleRow}.
+ */
+public class SingleRowBenchmark extends GridBenchmark {
+
+    @Param({"fixed", "mixed"})
+    public String itemSize;
+
+    @Override
+    Grid createGrid() {
+        return new SingleRow();
+    }
+
+    @Override
+    boolean hasMixedSize() {
+        return "mixed".equals(itemSize);
+    }
+}
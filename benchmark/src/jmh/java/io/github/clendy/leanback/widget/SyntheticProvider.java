@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com | yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.leanback.widget;
+
+import java.util.Random;
+
+/**
+ * A {@link Grid.Provider} without views.  Item sizes are fixed up front and edges of visible
+ * items are kept in an int array, scrolling moves all items by changing one offset, so the
+ * provider itself neither allocates nor searches and benchmarks measure the grid only.
+ */
+final class SyntheticProvider implements Grid.Provider {
+
+    private static final Object ITEM = new Object();
+
+    private final int[] mSizes;
+    private final int[] mEdges;
+    private int mScrollOffset;
+
+    /**
+     * @param count    Number of items.
+     * @param size     Size of items, or average size when mixed.
+     * @param mixed    True to randomly vary size between half and one and a half of size.
+     */
+    SyntheticProvider(int count, int size, boolean mixed) {
+        mSizes = new int[count];
+        mEdges = new int[count];
+        Random random = new Random(count);
+        for (int i = 0; i < count; i++) {
+            mSizes[i] = mixed ? size / 2 + random.nextInt(size) : size;
+        }
+    }
+
+    /**
+     * Moves all items towards start by distance, negative distance moves them towards end.
+     */
+    void scrollBy(int distance) {
+        mScrollOffset += distance;
+    }
+
+    void resetScroll() {
+        mScrollOffset = 0;
+    }
+
+    @Override
+    public int getCount() {
+        return mSizes.length;
+    }
+
+    @Override
+    public int createItem(int index, boolean append, Object[] item) {
+        item[0] = ITEM;
+        return mSizes[index];
+    }
+
+    @Override
+    public void addItem(Object item, int index, int length, int rowIndex, int edge) {
+        if (edge == Integer.MIN_VALUE || edge == Integer.MAX_VALUE) {
+            edge = 0;
+        }
+        mEdges[index] = edge + mScrollOffset;
+    }
+
+    @Override
+    public void createItems(int index, int count, boolean append, Object[] items, int[] sizes) {
+        for (int i = 0; i < count; i++) {
+            items[i] = ITEM;
+            sizes[i] = mSizes[append ? index + i : index - i];
+        }
+    }
+
+    @Override
+    public void addItems(Object[] items, int index, int count, boolean append, int[] sizes,
+            int[] rows, int[] edges) {
+        for (int i = 0; i < count; i++) {
+            addItem(items[i], append ? index + i : index - i, sizes[i], rows[i], edges[i]);
+        }
+    }
+
+    @Override
+    public void removeItem(int index) {
+    }
+
+    @Override
+    public int getEdge(int index) {
+        return mEdges[index] - mScrollOffset;
+    }
+
+    @Override
+    public int getSize(int index) {
+        return mSizes[index];
+    }
+}